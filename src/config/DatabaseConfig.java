@@ -16,7 +16,92 @@ public class DatabaseConfig {
     public static final String DB_URL = "jdbc:mysql://" + DB_HOST + ":" + DB_PORT + "/";
     public static final String DB_URL_WITH_DB = "jdbc:mysql://" + DB_HOST + ":" + DB_PORT + "/" + DB_NAME;
 
+    // Read replica used for reports and dashboards.
+    // Leave DB_READ_HOST empty to send every read to the primary; for local testing a
+    // second MySQL instance replicating from the first (e.g. on port 3307) is enough.
+    public static final String DB_READ_HOST = "";
+    public static final String DB_READ_PORT = "3307";
+    public static final String DB_READ_URL_WITH_DB = "jdbc:mysql://" + DB_READ_HOST + ":" + DB_READ_PORT + "/" + DB_NAME;
+    // after a write, reads stay on the primary this long so they see their own changes despite replica lag
+    public static final long READ_AFTER_WRITE_PIN_MS = 2_000;
+
     // JDBC Driver
     public static final String JDBC_DRIVER = "com.mysql.cj.jdbc.Driver";
-}
 
+    // Connection pool settings
+    public static final int POOL_MIN_SIZE = 2;
+    public static final int POOL_MAX_SIZE = 10;
+    public static final long POOL_BORROW_TIMEOUT_MS = 5_000;           // fail a borrow after waiting this long
+    public static final long POOL_IDLE_TIMEOUT_MS = 5 * 60_000;        // close idle connections above the minimum
+    public static final long POOL_MAX_LIFETIME_MS = 30 * 60_000;       // recycle connections older than this
+    public static final int POOL_VALIDATION_TIMEOUT_SEC = 2;           // isValid() timeout on borrow
+    public static final long POOL_VALIDATION_INTERVAL_MS = 1_000;      // skip validation if returned more recently
+    public static final long POOL_HOUSEKEEPING_INTERVAL_MS = 30_000;
+    // server-side prepared statements so cached statements keep their parsed plan on the server;
+    // connectTimeout so an unreachable server fails in seconds rather than after the OS TCP timeout;
+    // rewriteBatchedStatements so executeBatch() sends one multi-row INSERT instead of a round trip per row
+    public static final String POOL_URL_OPTIONS = "?useServerPrepStmts=true&connectTimeout=3000&rewriteBatchedStatements=true";
+    public static final int POOL_CONNECT_RETRIES = 2;                  // extra attempts when the housekeeper opens a connection
+    public static final long POOL_CONNECT_BACKOFF_MS = 200;            // doubled per retry, with jitter
+
+    // Circuit breaker: after this many failed connects, fail fast for a while, then probe once
+    public static final int BREAKER_FAILURE_THRESHOLD = 2;
+    public static final long BREAKER_OPEN_MS = 2_000;                  // doubled after each failed probe
+    public static final long BREAKER_MAX_OPEN_MS = 30_000;
+
+    // Async DAO calls allowed to use the database at once (more would only queue on the pool)
+    public static final int ASYNC_MAX_CONCURRENCY = POOL_MAX_SIZE;
+
+    // Prepared statements cached per pooled connection (0 disables the cache)
+    public static final int STATEMENT_CACHE_SIZE = 64;
+
+    // Diagnostic: per-method / per-statement call counts and latency percentiles (see database.QueryMetrics).
+    // Off by default: each statement then walks the stack, and each key keeps a ~15 KB histogram.
+    public static final boolean QUERY_METRICS_ENABLED = false;
+    public static final int QUERY_METRICS_MAX_KEYS = 500;   // further methods/statements share one "(other)" key
+
+    // Statements at least this slow are written to the slow query log (-1 disables it)
+    public static final long SLOW_QUERY_THRESHOLD_MS = 200;
+    public static final String SLOW_QUERY_LOG_FILE = "logs/slow-queries.log";
+    public static final long SLOW_QUERY_LOG_MAX_BYTES = 5L * 1024 * 1024; // roll over at this size
+    public static final int SLOW_QUERY_LOG_BACKUPS = 3;                    // slow-queries.log.1 .. .3
+    public static final boolean SLOW_QUERY_EXPLAIN = true;                 // capture EXPLAIN for slow SELECTs
+
+    // Diagnostic: follow every pooled connection, statement and result set and report the ones
+    // left open too long or garbage collected without close (see database.LeakDetector)
+    public static final boolean LEAK_DETECTION_ENABLED = false;
+    public static final long LEAK_DETECTION_THRESHOLD_MS = 60_000;
+    public static final boolean LEAK_DETECTION_LOG_POOL_CLOSES = true; // log statements closed only by connection close
+
+    // Opt-in monthly RANGE partitioning of sales on sale_date (migration V10, see database.SalesPartitionManager).
+    // Partitioned tables cannot have foreign keys, so sales loses its product/user constraints.
+    public static final boolean SALES_PARTITIONING_ENABLED = false;
+    public static final int SALES_PARTITION_MONTHS_AHEAD = 3;   // empty partitions kept ready for future months
+
+    // Retention (see services.ArchiveService): rows older than these many months are exported to
+    // gzip CSV files under ARCHIVE_DIR and then deleted in chunks with a pause between them
+    public static final String ARCHIVE_DIR = "archive";
+    public static final int SALES_RETENTION_MONTHS = 24;
+    public static final int REQUESTS_RETENTION_MONTHS = 12;  // only Approved / Rejected requests
+    public static final int ARCHIVE_DELETE_CHUNK_SIZE = 1_000;
+    public static final long ARCHIVE_CHUNK_PAUSE_MS = 200;   // lets other writers take the locks between chunks
+
+    // Bulk product import (see services.ProductImportService)
+    public static final int IMPORT_BATCH_SIZE = 500;          // rows per executeBatch()
+    public static final int IMPORT_TRANSACTION_ROWS = 5_000;  // rows committed together
+
+    // Shared product cache behind ProductDAO lookups (see dao.ProductCache); 0 entries disables it
+    public static final int PRODUCT_CACHE_MAX_SIZE = 10_000;
+    public static final long PRODUCT_CACHE_TTL_MS = 60_000;  // entries are reloaded after this, picking up other clients' edits
+
+    // In-memory typeahead index over product names (see services.ProductSearchIndex)
+    public static final long SEARCH_INDEX_REFRESH_MS = 300_000;  // full reload in the background, picking up other clients' edits
+
+    // In-memory low-stock set kept current from committed stock changes (see services.LowStockTracker)
+    public static final long LOW_STOCK_REFRESH_MS = 300_000;  // full reload in the background, picking up other clients' sales
+
+    // Expiring-soon queue and alerts (see services.ExpiryScheduler)
+    public static final int EXPIRY_ALERT_DAYS = 7;              // "expires within N days"
+    public static final int EXPIRY_WINDOW_DAYS = 60;            // products expiring before today + this are held in memory
+    public static final long EXPIRY_CHECK_INTERVAL_MS = 3_600_000;  // alerts are published, and the window reloaded, this often
+}
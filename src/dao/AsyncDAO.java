@@ -0,0 +1,111 @@
+package dao;
+
+import config.DatabaseConfig;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Async DAO Facade
+ * Runs blocking DAO calls on virtual threads and returns CompletableFutures, so controllers
+ * can start independent queries in parallel and keep the JavaFX thread free.
+ * A semaphore caps how many calls use the database at the same time, so a burst of
+ * tasks waits here instead of timing out on the connection pool.
+ *
+ * Futures complete on a background thread: use Platform.runLater to touch the UI.
+ */
+public class AsyncDAO {
+    private static volatile AsyncDAO instance;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore dbPermits = new Semaphore(DatabaseConfig.ASYNC_MAX_CONCURRENCY, true);
+
+    // DAOs hold no per-call state, so one instance of each is shared by all tasks
+    private final ProductDAO productDAO = new ProductDAO();
+    private final SaleDAO saleDAO = new SaleDAO();
+    private final RequestDAO requestDAO = new RequestDAO();
+    private final UserDAO userDAO = new UserDAO();
+    private final SalesRollupDAO rollupDAO = new SalesRollupDAO();
+
+    private AsyncDAO() {
+    }
+
+    /**
+     * Get singleton instance of AsyncDAO
+     */
+    public static AsyncDAO getInstance() {
+        if (instance == null) {
+            synchronized (AsyncDAO.class) {
+                if (instance == null) {
+                    instance = new AsyncDAO();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Run a ProductDAO call asynchronously, e.g. products(ProductDAO::getAllProducts)
+     */
+    public <T> CompletableFuture<T> products(Function<ProductDAO, T> call) {
+        return supply(() -> call.apply(productDAO));
+    }
+
+    /**
+     * Run a SaleDAO call asynchronously
+     */
+    public <T> CompletableFuture<T> sales(Function<SaleDAO, T> call) {
+        return supply(() -> call.apply(saleDAO));
+    }
+
+    /**
+     * Run a RequestDAO call asynchronously
+     */
+    public <T> CompletableFuture<T> requests(Function<RequestDAO, T> call) {
+        return supply(() -> call.apply(requestDAO));
+    }
+
+    /**
+     * Run a UserDAO call asynchronously
+     */
+    public <T> CompletableFuture<T> users(Function<UserDAO, T> call) {
+        return supply(() -> call.apply(userDAO));
+    }
+
+    /**
+     * Run a SalesRollupDAO call asynchronously
+     */
+    public <T> CompletableFuture<T> rollups(Function<SalesRollupDAO, T> call) {
+        return supply(() -> call.apply(rollupDAO));
+    }
+
+    /**
+     * Run any database work on a virtual thread, bounded by the DB concurrency limit
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                dbPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return work.get();
+            } finally {
+                dbPermits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Stop accepting work; running tasks are allowed to finish
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,307 @@
+package dao;
+
+import config.DatabaseConfig;
+import database.Transaction;
+import models.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Product Cache
+ * Shared in-memory copy of products keyed by product_id, used by ProductDAO.getProductById
+ * and getAllProducts. Holds at most PRODUCT_CACHE_MAX_SIZE products (least recently used
+ * are evicted) and reloads an entry once it is older than PRODUCT_CACHE_TTL_MS, so changes
+ * made by other clients show up within the TTL. ProductDAO and SaleDAO write through it
+ * after their transaction commits. Callers always get their own copy of a product.
+ * Listeners (e.g. services.ProductSearchIndex, services.LowStockTracker) are told about
+ * those committed writes.
+ */
+public class ProductCache {
+    private static volatile ProductCache instance;
+
+    private final IntFunction<Product> loadOne;
+    private final Supplier<List<Product>> loadAll;
+    private final int maxSize;
+    private final long ttlMs;
+
+    private final LinkedHashMap<Integer, Entry> entries;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // bumped by every write; a load that started before a write does not store its (older) result
+    private long generation;
+    // until then getAll() is answered from entries, which hold the whole table
+    private long completeUntil;
+
+    private long hits;
+    private long misses;
+    private long expirations;
+    private long evictions;
+
+    ProductCache(IntFunction<Product> loadOne, Supplier<List<Product>> loadAll, int maxSize, long ttlMs) {
+        this.loadOne = loadOne;
+        this.loadAll = loadAll;
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() <= ProductCache.this.maxSize) return false;
+                evictions++;
+                completeUntil = 0;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get the shared cache instance
+     */
+    public static ProductCache getInstance() {
+        if (instance == null) {
+            synchronized (ProductCache.class) {
+                if (instance == null) {
+                    ProductDAO dao = new ProductDAO();
+                    instance = new ProductCache(dao::loadProductById, dao::loadAllProducts,
+                        DatabaseConfig.PRODUCT_CACHE_MAX_SIZE, DatabaseConfig.PRODUCT_CACHE_TTL_MS);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get a product, loading it on a miss; null if it does not exist
+     */
+    public Product get(int productId) {
+        if (maxSize <= 0) return loadOne.apply(productId);
+        long gen;
+        synchronized (this) {
+            Entry e = entries.get(productId);
+            long now = System.currentTimeMillis();
+            if (e != null && e.expiresAt > now) {
+                hits++;
+                return new Product(e.product);
+            }
+            if (e != null) expirations++;
+            misses++;
+            gen = generation;
+        }
+        // load outside the lock so one slow query does not stall every other lookup
+        Product loaded = loadOne.apply(productId);
+        if (loaded != null) {
+            synchronized (this) {
+                if (generation == gen) store(loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Get every product ordered by product_id, from memory while the whole table fits and is fresh
+     */
+    public List<Product> getAll() {
+        if (maxSize <= 0) return loadAll.get();
+        long gen;
+        synchronized (this) {
+            if (completeUntil > System.currentTimeMillis()) {
+                hits++;
+                List<Product> copies = new ArrayList<>(entries.size());
+                for (Entry e : entries.values()) copies.add(new Product(e.product));
+                copies.sort(Comparator.comparingInt(Product::getProductId));
+                return copies;
+            }
+            misses++;
+            gen = generation;
+        }
+        List<Product> all = loadAll.get();
+        if (!all.isEmpty() && all.size() <= maxSize) {
+            synchronized (this) {
+                if (generation == gen) {
+                    entries.clear();
+                    for (Product p : all) store(p);
+                    completeUntil = System.currentTimeMillis() + ttlMs;
+                }
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Store a created or updated product once the surrounding transaction (if any) commits
+     */
+    public void put(Product product) {
+        Product copy = new Product(product);
+        whenCommitted(() -> {
+            synchronized (this) {
+                generation++;
+                if (maxSize > 0) store(copy);
+            }
+            for (Listener l : listeners) l.productChanged(new Product(copy));
+        });
+    }
+
+    /**
+     * Store edited descriptive fields once committed, keeping the cached stock (the edit did not touch it)
+     */
+    public void putDetails(Product product) {
+        Product copy = new Product(product);
+        whenCommitted(() -> {
+            synchronized (this) {
+                generation++;
+                Entry e = entries.get(copy.getProductId());
+                if (e != null) {
+                    copy.setStockQuantity(e.product.getStockQuantity());
+                    store(copy);
+                }
+            }
+            for (Listener l : listeners) l.detailsChanged(new Product(copy));
+        });
+    }
+
+    /**
+     * Apply a committed stock change to the cached product, if it is cached
+     */
+    public void adjustStock(int productId, int delta) {
+        whenCommitted(() -> {
+            synchronized (this) {
+                generation++;
+                Entry e = entries.get(productId);
+                if (e != null) e.product.setStockQuantity(e.product.getStockQuantity() + delta);
+            }
+            for (Listener l : listeners) l.stockAdjusted(productId, delta);
+        });
+    }
+
+    /**
+     * Forget a product once the surrounding transaction (if any) commits
+     */
+    public void remove(int productId) {
+        whenCommitted(() -> {
+            synchronized (this) {
+                generation++;
+                entries.remove(productId);
+            }
+            for (Listener l : listeners) l.productRemoved(productId);
+        });
+    }
+
+    /**
+     * Drop a product that may be stale so the next lookup reloads it
+     */
+    public void invalidate(int productId) {
+        whenCommitted(() -> {
+            synchronized (this) {
+                generation++;
+                if (entries.remove(productId) != null) completeUntil = 0;
+            }
+        });
+    }
+
+    /**
+     * Forget everything, e.g. after a bulk change made outside ProductDAO
+     */
+    public void invalidateAll() {
+        whenCommitted(() -> {
+            synchronized (this) {
+                generation++;
+                entries.clear();
+                completeUntil = 0;
+            }
+            for (Listener l : listeners) l.allInvalidated();
+        });
+    }
+
+    /**
+     * Be told about committed product writes; called on the committing thread, outside the cache lock
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Snapshot of the cache counters
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, expirations, evictions, entries.size());
+    }
+
+    private void store(Product product) {
+        entries.put(product.getProductId(), new Entry(new Product(product), System.currentTimeMillis() + ttlMs));
+    }
+
+    private static void whenCommitted(Runnable action) {
+        Transaction tx = Transaction.current();
+        if (tx != null) tx.afterCommit(action);
+        else action.run();
+    }
+
+    /**
+     * Committed product writes; implement the ones of interest
+     */
+    public interface Listener {
+        // created, or every column updated
+        default void productChanged(Product product) {}
+        // descriptive fields updated; the product's stock may be older than the row's
+        default void detailsChanged(Product product) {}
+        default void stockAdjusted(int productId, int delta) {}
+        default void productRemoved(int productId) {}
+        // bulk change: anything may have changed
+        default void allInvalidated() {}
+    }
+
+    private static final class Entry {
+        final Product product;
+        final long expiresAt;
+
+        Entry(Product product, long expiresAt) {
+            this.product = product;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Cache counters at a point in time
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long expirations;
+        private final long evictions;
+        private final int size;
+
+        Stats(long hits, long misses, long expirations, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.expirations = expirations;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getExpirations() { return expirations; }
+        public long getEvictions() { return evictions; }
+        public int getSize() { return size; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ProductCacheStats{hits=%d, misses=%d, hitRate=%.1f%%, expirations=%d, evictions=%d, size=%d}",
+                    hits, misses, getHitRate() * 100, expirations, evictions, size);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package dao;
 
 import models.Product;
+import models.ProductSummary;
+import models.StockAdjustment;
+import models.UpdateResult;
 import database.DatabaseConnection;
+import database.Transaction;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import utils.Logger;
 
 /**
@@ -12,11 +22,11 @@ import utils.Logger;
  * Handles all database operations for Product entity
  */
 public class ProductDAO {
-    private Connection connection;
-
-    public ProductDAO() {
-        this.connection = DatabaseConnection.getInstance().getConnection();
-    }
+    // InnoDB does not index words shorter than innodb_ft_min_token_size (default 3)
+    private static final int FULLTEXT_MIN_TOKEN = 3;
+    private static final int ER_FT_MATCHING_KEY_NOT_FOUND = 1191;
+    // ids per locking SELECT and updates per executeBatch() in adjustStockBulk
+    private static final int STOCK_BATCH_SIZE = 500;
 
     /**
      * Create a new product
@@ -24,8 +34,8 @@ public class ProductDAO {
     public boolean createProduct(Product product) {
         String sql = "INSERT INTO products (product_name, buying_price, selling_price, stock_quantity, " +
                     "threshold_value, expiry_date, image_path) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, product.getProductName());
             pstmt.setDouble(2, product.getBuyingPrice());
             pstmt.setDouble(3, product.getSellingPrice());
@@ -35,7 +45,14 @@ public class ProductDAO {
             pstmt.setString(7, product.getImagePath());
 
             int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+            if (rowsAffected == 0) return false;
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    product.setProductId(keys.getInt(1));
+                    ProductCache.getInstance().put(product);
+                }
+            }
+            return true;
         } catch (SQLException e) {
             Logger.error("Failed to create product: " + product.getProductName(), e);
         }
@@ -43,17 +60,25 @@ public class ProductDAO {
     }
 
     /**
-     * Get product by ID
+     * Get product by ID, from the product cache when it is there
      */
     public Product getProductById(int productId) {
+        return ProductCache.getInstance().get(productId);
+    }
+
+    /**
+     * Get product by ID from the database (the product cache's loader)
+     */
+    Product loadProductById(int productId) {
         String sql = "SELECT * FROM products WHERE product_id = ?";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, productId);
 
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return extractProductFromResultSet(rs);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return extractProductFromResultSet(rs);
+                }
             }
         } catch (SQLException e) {
             Logger.error("Failed to get product by id: " + productId, e);
@@ -62,15 +87,21 @@ public class ProductDAO {
     }
 
     /**
-     * Get all products
+     * Get all products, from the product cache while it holds the whole table
      */
     public List<Product> getAllProducts() {
+        return ProductCache.getInstance().getAll();
+    }
+
+    /**
+     * Get all products from the database (the product cache's loader)
+     */
+    List<Product> loadAllProducts() {
         List<Product> products = new ArrayList<>();
         String sql = "SELECT * FROM products ORDER BY product_id";
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 products.add(extractProductFromResultSet(rs));
             }
@@ -81,29 +112,153 @@ public class ProductDAO {
     }
 
     /**
-     * Update product
+     * Get the id and name of every product, by product_id, without reading the other columns
      */
-    public boolean updateProduct(Product product) {
+    public List<ProductSummary> getProductSummaries() {
+        List<ProductSummary> products = new ArrayList<>();
+        String sql = "SELECT product_id, product_name FROM products ORDER BY product_id";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                products.add(new ProductSummary(rs.getInt(1), rs.getString(2)));
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to get product summaries", e);
+        }
+        return products;
+    }
+
+    /**
+     * Get up to limit products with product_id greater than afterId, by product_id.
+     * Pass 0 for the first page and the last product's id for the next one.
+     */
+    public List<Product> getProductsPage(int afterId, int limit) {
+        List<Product> products = new ArrayList<>();
+        String sql = "SELECT * FROM products WHERE product_id > ? ORDER BY product_id LIMIT ?";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(extractProductFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to get products page after id " + afterId, e);
+        }
+        return products;
+    }
+
+    /**
+     * Get the products with the given ids in one query, in the order of the ids; ids that no
+     * longer exist are skipped. Meant for a page of results (a few hundred ids at most).
+     */
+    public List<Product> getProductsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) return new ArrayList<>();
+        Map<Integer, Product> found = new HashMap<>();
+        String sql = "SELECT * FROM products WHERE product_id IN (" +
+                    String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) pstmt.setInt(i + 1, ids.get(i));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Product p = extractProductFromResultSet(rs);
+                    found.put(p.getProductId(), p);
+                }
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to get " + ids.size() + " products by id", e);
+        }
+        List<Product> products = new ArrayList<>(found.size());
+        for (int id : ids) {
+            Product p = found.get(id);
+            if (p != null) products.add(p);
+        }
+        return products;
+    }
+
+    /**
+     * Pass every product to the consumer, by product_id, without holding them all in memory.
+     * The connection is busy until the last row is read, so the consumer must not query
+     * through the same transaction.
+     * @return number of products read, or -1 on failure
+     */
+    public int streamProducts(Consumer<Product> consumer) {
+        String sql = "SELECT * FROM products ORDER BY product_id";
+        int count = 0;
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = DatabaseConnection.prepareStreaming(conn, sql)) {
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(extractProductFromResultSet(rs));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to stream products", e);
+            return -1;
+        }
+        return count;
+    }
+
+    /**
+     * Update the descriptive fields (name, prices, threshold, expiry, image) unless someone else
+     * edited them since the product was loaded. Stock is left alone, so sales made meanwhile are kept.
+     * On success the product's version is advanced to match the row.
+     */
+    public UpdateResult updateProductDetails(Product product) {
+        return compareAndSet(product, false, 0);
+    }
+
+    /**
+     * Update the descriptive fields and set stock, unless the fields (by version) or the stock
+     * (expectedStock, as it was loaded) changed since the product was loaded
+     */
+    public UpdateResult updateProduct(Product product, int expectedStock) {
+        return compareAndSet(product, true, expectedStock);
+    }
+
+    private UpdateResult compareAndSet(Product product, boolean withStock, int expectedStock) {
         String sql = "UPDATE products SET product_name = ?, buying_price = ?, selling_price = ?, " +
-                    "stock_quantity = ?, threshold_value = ?, expiry_date = ?, image_path = ? " +
-                    "WHERE product_id = ?";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setString(1, product.getProductName());
-            pstmt.setDouble(2, product.getBuyingPrice());
-            pstmt.setDouble(3, product.getSellingPrice());
-            pstmt.setInt(4, product.getStockQuantity());
-            pstmt.setInt(5, product.getThresholdValue());
-            pstmt.setDate(6, product.getExpiryDate());
-            pstmt.setString(7, product.getImagePath());
-            pstmt.setInt(8, product.getProductId());
+                    "threshold_value = ?, expiry_date = ?, image_path = ?, version = version + 1" +
+                    (withStock ? ", stock_quantity = ?" : "") +
+                    " WHERE product_id = ? AND version = ?" +
+                    (withStock ? " AND stock_quantity = ?" : "");
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            pstmt.setString(i++, product.getProductName());
+            pstmt.setDouble(i++, product.getBuyingPrice());
+            pstmt.setDouble(i++, product.getSellingPrice());
+            pstmt.setInt(i++, product.getThresholdValue());
+            pstmt.setDate(i++, product.getExpiryDate());
+            pstmt.setString(i++, product.getImagePath());
+            if (withStock) pstmt.setInt(i++, product.getStockQuantity());
+            pstmt.setInt(i++, product.getProductId());
+            pstmt.setInt(i++, product.getVersion());
+            if (withStock) pstmt.setInt(i, expectedStock);
 
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+            if (pstmt.executeUpdate() > 0) {
+                product.setVersion(product.getVersion() + 1);
+                if (withStock) ProductCache.getInstance().put(product);
+                else ProductCache.getInstance().putDetails(product);
+                return UpdateResult.UPDATED;
+            }
+            // nothing matched: the row is gone, or our copy (and likely the cached one) is stale
+            ProductCache.getInstance().invalidate(product.getProductId());
+            try (PreparedStatement exists = conn.prepareStatement("SELECT 1 FROM products WHERE product_id = ?")) {
+                exists.setInt(1, product.getProductId());
+                try (ResultSet rs = exists.executeQuery()) {
+                    return rs.next() ? UpdateResult.CONFLICT : UpdateResult.NOT_FOUND;
+                }
+            }
         } catch (SQLException e) {
             Logger.error("Failed to update product: " + product.getProductId(), e);
         }
-        return false;
+        return UpdateResult.FAILED;
     }
 
     /**
@@ -112,11 +267,20 @@ public class ProductDAO {
     public boolean deleteProduct(int productId) {
         String sql = "DELETE FROM products WHERE product_id = ?";
         try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setInt(1, productId);
-
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+            return Transaction.run(tx -> {
+                try (PreparedStatement pstmt = tx.getConnection().prepareStatement(sql)) {
+                    pstmt.setInt(1, productId);
+                    if (pstmt.executeUpdate() == 0) return false;
+                }
+                // the foreign key cascade removed the product's sales, so drop their rollup rows too;
+                // a partitioned sales table has no foreign keys, so there the sales and rollup rows stay
+                if (!new SalesRollupDAO().removeOrphanedProduct(productId)) {
+                    tx.setRollbackOnly();
+                    return false;
+                }
+                ProductCache.getInstance().remove(productId);
+                return true;
+            });
         } catch (SQLException e) {
             Logger.error("Failed to delete product: " + productId, e);
         }
@@ -124,18 +288,83 @@ public class ProductDAO {
     }
 
     /**
-     * Search products by name
+     * Search products by name, best matches first
      */
     public List<Product> searchProducts(String searchTerm) {
+        return searchProducts(searchTerm, 0);
+    }
+
+    /**
+     * Search products by name, best matches first. Each word of at least FULLTEXT_MIN_TOKEN
+     * characters is a prefix match on the ft_products_name index ("choc" finds "Chocolate Bar");
+     * shorter words are matched with LIKE, and only LIKE is used when no word is long enough.
+     * @param limit maximum number of results, or 0 for no limit
+     */
+    public List<Product> searchProducts(String searchTerm, int limit) {
+        List<String> words = new ArrayList<>();
+        List<String> shortWords = new ArrayList<>();
+        for (String word : searchTerm.trim().split("[^\\p{L}\\p{N}_]+")) {
+            if (word.isEmpty()) continue;
+            if (word.length() >= FULLTEXT_MIN_TOKEN) words.add(word);
+            else shortWords.add(word);
+        }
+        if (!words.isEmpty()) {
+            try {
+                return fullTextSearch(words, shortWords, limit);
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_FT_MATCHING_KEY_NOT_FOUND) {
+                    Logger.error("Failed to search products: " + searchTerm, e);
+                    return new ArrayList<>();
+                }
+                Logger.warn("FULLTEXT index on products.product_name is missing; searching with LIKE");
+            }
+        }
+        return likeSearch(searchTerm.trim(), limit);
+    }
+
+    private List<Product> fullTextSearch(List<String> words, List<String> shortWords, int limit) throws SQLException {
+        // every word is required (+) and may be a prefix (*); operator characters were split out above
+        StringBuilder against = new StringBuilder();
+        for (String word : words) against.append('+').append(word).append("* ");
+        StringBuilder sql = new StringBuilder("SELECT *, MATCH(product_name) AGAINST (? IN BOOLEAN MODE) AS score " +
+            "FROM products WHERE MATCH(product_name) AGAINST (? IN BOOLEAN MODE)");
+        for (int i = 0; i < shortWords.size(); i++) sql.append(" AND product_name LIKE ?");
+        sql.append(" ORDER BY score DESC, product_name");
+        if (limit > 0) sql.append(" LIMIT ?");
+
         List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE product_name LIKE ? ORDER BY product_name";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setString(1, "%" + searchTerm + "%");
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int i = 1;
+            pstmt.setString(i++, against.toString().trim());
+            pstmt.setString(i++, against.toString().trim());
+            for (String word : shortWords) pstmt.setString(i++, "%" + escapeLike(word) + "%");
+            if (limit > 0) pstmt.setInt(i, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(extractProductFromResultSet(rs));
+                }
+            }
+        }
+        return products;
+    }
 
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                products.add(extractProductFromResultSet(rs));
+    // substring scan for terms too short for the FULLTEXT index; names starting with the term come first
+    private List<Product> likeSearch(String searchTerm, int limit) {
+        List<Product> products = new ArrayList<>();
+        String sql = "SELECT * FROM products WHERE product_name LIKE ? " +
+                    "ORDER BY product_name LIKE ? DESC, product_name" + (limit > 0 ? " LIMIT ?" : "");
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            String escaped = escapeLike(searchTerm);
+            pstmt.setString(1, "%" + escaped + "%");
+            pstmt.setString(2, escaped + "%");
+            if (limit > 0) pstmt.setInt(3, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(extractProductFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
             Logger.error("Failed to search products: " + searchTerm, e);
@@ -143,16 +372,19 @@ public class ProductDAO {
         return products;
     }
 
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     /**
      * Get low stock products
      */
     public List<Product> getLowStockProducts() {
         List<Product> products = new ArrayList<>();
         String sql = "SELECT * FROM products WHERE stock_quantity <= threshold_value ORDER BY stock_quantity";
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 products.add(extractProductFromResultSet(rs));
             }
@@ -162,14 +394,37 @@ public class ProductDAO {
         return products;
     }
 
+    /**
+     * Get products with an expiry date before the given day (including already expired ones),
+     * soonest first; a range scan on idx_products_expiry_date
+     * @return the products, or null on failure (so callers can tell "none" from "unknown")
+     */
+    public List<Product> getProductsExpiringBefore(Date before) {
+        List<Product> products = new ArrayList<>();
+        String sql = "SELECT * FROM products WHERE expiry_date < ? ORDER BY expiry_date, product_id";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, before);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(extractProductFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to get products expiring before " + before, e);
+            return null;
+        }
+        return products;
+    }
+
     /**
      * Get out of stock products count
      */
     public int getOutOfStockCount() {
         String sql = "SELECT COUNT(*) FROM products WHERE stock_quantity = 0";
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
@@ -184,19 +439,97 @@ public class ProductDAO {
      */
     public boolean updateStock(int productId, int quantity) {
         String sql = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE product_id = ?";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, quantity);
             pstmt.setInt(2, productId);
 
             int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+            if (rowsAffected == 0) return false;
+            ProductCache.getInstance().adjustStock(productId, quantity);
+            return true;
         } catch (SQLException e) {
             Logger.error("Failed to update stock for product: " + productId, e);
         }
         return false;
     }
 
+    /**
+     * Apply stock changes (product id to delta) to many products in one transaction.
+     * Rows are locked in product_id order, so concurrent bulk adjustments cannot deadlock
+     * each other, and the updates go out as JDBC batches. All or nothing: if any product
+     * is missing or would go below zero, nothing is changed.
+     * @return one result per product in product_id order, or null if the database call failed
+     */
+    public Map<Integer, StockAdjustment> adjustStockBulk(Map<Integer, Integer> deltas) {
+        TreeMap<Integer, Integer> ordered = new TreeMap<>(deltas);
+        String update = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE product_id = ?";
+        try {
+            return Transaction.run(tx -> {
+                Connection conn = tx.getConnection();
+                Map<Integer, Integer> stock = lockStock(conn, new ArrayList<>(ordered.keySet()));
+
+                Map<Integer, StockAdjustment> results = new LinkedHashMap<>();
+                boolean valid = true;
+                for (Map.Entry<Integer, Integer> e : ordered.entrySet()) {
+                    Integer before = stock.get(e.getKey());
+                    StockAdjustment.Status status;
+                    if (before == null) status = StockAdjustment.Status.NOT_FOUND;
+                    else if (before + e.getValue() < 0) status = StockAdjustment.Status.INSUFFICIENT_STOCK;
+                    else status = StockAdjustment.Status.APPLIED;
+                    valid &= status == StockAdjustment.Status.APPLIED;
+                    int b = before == null ? 0 : before;
+                    results.put(e.getKey(), new StockAdjustment(e.getKey(), e.getValue(), b, b + e.getValue(), status));
+                }
+                if (!valid) {
+                    tx.setRollbackOnly();
+                    results.replaceAll((id, r) -> r.isApplied()
+                        ? new StockAdjustment(id, r.getDelta(), r.getStockBefore(), r.getStockAfter(), StockAdjustment.Status.REJECTED)
+                        : r);
+                    return results;
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement(update)) {
+                    int n = 0;
+                    for (Map.Entry<Integer, Integer> e : ordered.entrySet()) {
+                        if (e.getValue() == 0) continue;
+                        pstmt.setInt(1, e.getValue());
+                        pstmt.setInt(2, e.getKey());
+                        pstmt.addBatch();
+                        if (++n % STOCK_BATCH_SIZE == 0) pstmt.executeBatch();
+                    }
+                    if (n % STOCK_BATCH_SIZE != 0) pstmt.executeBatch();
+                }
+                for (Map.Entry<Integer, Integer> e : ordered.entrySet()) {
+                    if (e.getValue() != 0) ProductCache.getInstance().adjustStock(e.getKey(), e.getValue());
+                }
+                return results;
+            });
+        } catch (SQLException e) {
+            Logger.error("Failed to adjust stock for " + deltas.size() + " products", e);
+            return null;
+        }
+    }
+
+    /**
+     * Read and lock stock_quantity for the given ids (ascending), in chunks of STOCK_BATCH_SIZE
+     */
+    private Map<Integer, Integer> lockStock(Connection conn, List<Integer> ids) throws SQLException {
+        Map<Integer, Integer> stock = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += STOCK_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + STOCK_BATCH_SIZE, ids.size()));
+            String sql = "SELECT product_id, stock_quantity FROM products WHERE product_id IN (" +
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY product_id FOR UPDATE";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) pstmt.setInt(i + 1, chunk.get(i));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) stock.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        }
+        return stock;
+    }
+
     /**
      * Extract Product object from ResultSet
      */
@@ -212,6 +545,7 @@ public class ProductDAO {
         product.setImagePath(rs.getString("image_path"));
         product.setCreatedAt(rs.getTimestamp("created_at"));
         product.setUpdatedAt(rs.getTimestamp("updated_at"));
+        product.setVersion(rs.getInt("version"));
         return product;
     }
 }
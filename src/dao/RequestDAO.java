@@ -5,18 +5,15 @@ import database.DatabaseConnection;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import utils.Logger;
 
 /**
  * Request Data Access Object
  * Handles all database operations for Request entity
+ * Listing and report queries use getReadConnection() so they can run on the read replica
  */
 public class RequestDAO {
-    private Connection connection;
-
-    public RequestDAO() {
-        this.connection = DatabaseConnection.getInstance().getConnection();
-    }
 
     /**
      * Create a new request
@@ -24,8 +21,8 @@ public class RequestDAO {
     public boolean createRequest(Request request) {
         String sql = "INSERT INTO requests (product_id, product_name, requested_quantity, requested_by_user_id, requested_by_name, status) " +
                     "VALUES (?, ?, ?, ?, ?, ?)";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, request.getProductId());
             pstmt.setString(2, request.getProductName());
             pstmt.setInt(3, request.getRequestedQuantity());
@@ -47,10 +44,9 @@ public class RequestDAO {
     public List<Request> getAllRequests() {
         List<Request> requests = new ArrayList<>();
         String sql = "SELECT r.*, u.full_name as requested_by_name_from_user FROM requests r LEFT JOIN users u ON r.requested_by_user_id = u.user_id ORDER BY r.request_date DESC";
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 requests.add(extractRequestFromResultSet(rs));
             }
@@ -60,16 +56,69 @@ public class RequestDAO {
         return requests;
     }
 
+    /**
+     * Get up to limit requests older than the given position, newest first.
+     * Pass null for the first page, then the last request's date and id for the next one.
+     */
+    public List<Request> getRequestsPage(Timestamp beforeDate, int beforeId, int limit) {
+        List<Request> requests = new ArrayList<>();
+        String sql = "SELECT r.*, u.full_name as requested_by_name_from_user FROM requests r LEFT JOIN users u ON r.requested_by_user_id = u.user_id " +
+                    (beforeDate == null ? "" : "WHERE r.request_date < ? OR (r.request_date = ? AND r.request_id < ?) ") +
+                    "ORDER BY r.request_date DESC, r.request_id DESC LIMIT ?";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (beforeDate != null) {
+                pstmt.setTimestamp(i++, beforeDate);
+                pstmt.setTimestamp(i++, beforeDate);
+                pstmt.setInt(i++, beforeId);
+            }
+            pstmt.setInt(i, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    requests.add(extractRequestFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to get requests page before " + beforeDate + "/" + beforeId, e);
+        }
+        return requests;
+    }
+
+    /**
+     * Pass every request to the consumer, newest first, without holding them all in memory.
+     * The connection is busy until the last row is read, so the consumer must not query
+     * through the same transaction.
+     * @return number of requests read, or -1 on failure
+     */
+    public int streamRequests(Consumer<Request> consumer) {
+        String sql = "SELECT r.*, u.full_name as requested_by_name_from_user FROM requests r LEFT JOIN users u ON r.requested_by_user_id = u.user_id " +
+                    "ORDER BY r.request_date DESC, r.request_id DESC";
+        int count = 0;
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = DatabaseConnection.prepareStreaming(conn, sql)) {
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(extractRequestFromResultSet(rs));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to stream requests", e);
+            return -1;
+        }
+        return count;
+    }
+
     /**
      * Get pending requests
      */
     public List<Request> getPendingRequests() {
         List<Request> requests = new ArrayList<>();
         String sql = "SELECT r.*, u.full_name as requested_by_name_from_user FROM requests r LEFT JOIN users u ON r.requested_by_user_id = u.user_id WHERE r.status = 'Pending' ORDER BY r.request_date DESC";
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 requests.add(extractRequestFromResultSet(rs));
             }
@@ -85,13 +134,13 @@ public class RequestDAO {
     public List<Request> getRequestsByUser(int requestedByUserId) {
         List<Request> requests = new ArrayList<>();
         String sql = "SELECT r.*, u.full_name as requested_by_name_from_user FROM requests r LEFT JOIN users u ON r.requested_by_user_id = u.user_id WHERE r.requested_by_user_id = ? ORDER BY r.request_date DESC";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, requestedByUserId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                requests.add(extractRequestFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    requests.add(extractRequestFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
             Logger.error("Failed to get requests by user id: " + requestedByUserId, e);
@@ -105,13 +154,13 @@ public class RequestDAO {
     public List<Request> getRequestsByUser(String requestedByName) {
         List<Request> requests = new ArrayList<>();
         String sql = "SELECT * FROM requests WHERE requested_by_name = ? ORDER BY request_date DESC";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, requestedByName);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                requests.add(extractRequestFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    requests.add(extractRequestFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
             Logger.error("Failed to get requests by user name: " + requestedByName, e);
@@ -124,8 +173,8 @@ public class RequestDAO {
      */
     public boolean updateRequestStatus(int requestId, String status) {
         String sql = "UPDATE requests SET status = ? WHERE request_id = ?";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, status);
             pstmt.setInt(2, requestId);
 
@@ -142,8 +191,8 @@ public class RequestDAO {
      */
     public boolean deleteRequest(int requestId) {
         String sql = "DELETE FROM requests WHERE request_id = ?";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, requestId);
 
             int rowsAffected = pstmt.executeUpdate();
@@ -159,9 +208,9 @@ public class RequestDAO {
      */
     public int getRequestsCount() {
         String sql = "SELECT COUNT(*) FROM requests WHERE status = 'Pending'";
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
@@ -1,24 +1,33 @@
 package dao;
 
+import models.CheckoutResult;
+import models.Product;
 import models.Sale;
 import database.DatabaseConnection;
+import database.Transaction;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.LinkedHashMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import utils.Logger;
 
 /**
  * Sale Data Access Object
  * Handles all database operations for Sale entity
+ * Listing and report queries use getReadConnection() so they can run on the read replica
+ * Every write also updates sales_daily_rollup in the same transaction
  */
 public class SaleDAO {
-    private Connection connection;
+    // products per locking SELECT and sale lines per multi-row INSERT in checkout
+    private static final int CHECKOUT_BATCH_SIZE = 500;
 
-    public SaleDAO() {
-        this.connection = DatabaseConnection.getInstance().getConnection();
-    }
+    private final SalesRollupDAO rollupDAO = new SalesRollupDAO();
 
     /**
      * Create a new sale and update product stock
@@ -27,42 +36,43 @@ public class SaleDAO {
         // explicitly set sale_date to NOW() so the row has a timestamp even if DB schema lacks a default
         String sql = "INSERT INTO sales (product_id, product_name, quantity, unit_price, total_price, user_id, sale_date) " +
                     "VALUES (?, ?, ?, ?, ?, ?, NOW())";
+        String updateStock = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE product_id = ?";
         try {
-            // Start transaction
-            connection.setAutoCommit(false);
-
-            // Insert sale
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setInt(1, sale.getProductId());
-            pstmt.setString(2, sale.getProductName());
-            pstmt.setInt(3, sale.getQuantity());
-            pstmt.setDouble(4, sale.getUnitPrice());
-            pstmt.setDouble(5, sale.getTotalPrice());
-            pstmt.setInt(6, sale.getUserId());
-
-            int rowsAffected = pstmt.executeUpdate();
-
-            if (rowsAffected > 0) {
+            return Transaction.run(tx -> {
+                Connection conn = tx.getConnection();
+                int saleId = -1;
+                try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setInt(1, sale.getProductId());
+                    pstmt.setString(2, sale.getProductName());
+                    pstmt.setInt(3, sale.getQuantity());
+                    pstmt.setDouble(4, sale.getUnitPrice());
+                    pstmt.setDouble(5, sale.getTotalPrice());
+                    pstmt.setInt(6, sale.getUserId());
+                    if (pstmt.executeUpdate() == 0) {
+                        tx.setRollbackOnly();
+                        return false;
+                    }
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        if (keys.next()) saleId = keys.getInt(1);
+                    }
+                }
                 // Update product stock
-                String updateStock = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE product_id = ?";
-                PreparedStatement updateStmt = connection.prepareStatement(updateStock);
-                updateStmt.setInt(1, sale.getQuantity());
-                updateStmt.setInt(2, sale.getProductId());
-                updateStmt.executeUpdate();
-
-                // Commit transaction
-                connection.commit();
-                connection.setAutoCommit(true);
+                try (PreparedStatement updateStmt = conn.prepareStatement(updateStock)) {
+                    updateStmt.setInt(1, sale.getQuantity());
+                    updateStmt.setInt(2, sale.getProductId());
+                    updateStmt.executeUpdate();
+                }
+                if (!rollupDAO.addSale(saleId)) {
+                    tx.setRollbackOnly();
+                    return false;
+                }
+                ProductCache.getInstance().adjustStock(sale.getProductId(), -sale.getQuantity());
                 return true;
-            }
-
-            connection.rollback();
-            connection.setAutoCommit(true);
+            });
         } catch (SQLException e) {
-            try { connection.rollback(); connection.setAutoCommit(true);} catch (SQLException ex) { Logger.error("Rollback failed in createSale", ex); }
             Logger.error("Failed to create sale", e);
+            return false;
         }
-        return false;
     }
 
     /**
@@ -75,56 +85,187 @@ public class SaleDAO {
         String insertSql = "INSERT INTO sales (product_id, product_name, quantity, unit_price, total_price, user_id, sale_date) VALUES (?, ?, ?, ?, ?, ?, NOW())";
         String updateStock = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE product_id = ?";
         try {
-            connection.setAutoCommit(false);
-            try (PreparedStatement stockStmt = connection.prepareStatement(stockQuery)) {
-                stockStmt.setInt(1, sale.getProductId());
-                ResultSet rs = stockStmt.executeQuery();
-                if (!rs.next()) { connection.rollback(); connection.setAutoCommit(true); return -1; }
-                int stock = rs.getInt(1);
-                double currentPrice = rs.getDouble(2);
-                String productName = rs.getString(3);
-                if (sale.getUnitPrice() <= 0) sale.setUnitPrice(currentPrice);
-                if (sale.getProductName() == null || sale.getProductName().isEmpty()) sale.setProductName(productName);
-                if (sale.getQuantity() <= 0 || sale.getQuantity() > stock) { connection.rollback(); connection.setAutoCommit(true); return -1; }
-            }
-            int generatedId = -1;
-            try (PreparedStatement insert = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
-                insert.setInt(1, sale.getProductId());
-                insert.setString(2, sale.getProductName());
-                insert.setInt(3, sale.getQuantity());
-                insert.setDouble(4, sale.getUnitPrice());
-                insert.setDouble(5, sale.getTotalPrice());
-                insert.setInt(6, sale.getUserId());
-                int ra = insert.executeUpdate();
-                if (ra == 0) { connection.rollback(); connection.setAutoCommit(true); return -1; }
-                ResultSet keys = insert.getGeneratedKeys();
-                if (keys.next()) generatedId = keys.getInt(1);
-            }
-            try (PreparedStatement upd = connection.prepareStatement(updateStock)) {
-                upd.setInt(1, sale.getQuantity());
-                upd.setInt(2, sale.getProductId());
-                upd.executeUpdate();
-            }
-            connection.commit();
-            connection.setAutoCommit(true);
-            return generatedId;
+            return Transaction.run(tx -> {
+                Connection connection = tx.getConnection();
+                try (PreparedStatement stockStmt = connection.prepareStatement(stockQuery)) {
+                    stockStmt.setInt(1, sale.getProductId());
+                    try (ResultSet rs = stockStmt.executeQuery()) {
+                        if (!rs.next()) { tx.setRollbackOnly(); return -1; }
+                        int stock = rs.getInt(1);
+                        double currentPrice = rs.getDouble(2);
+                        String productName = rs.getString(3);
+                        if (sale.getUnitPrice() <= 0) sale.setUnitPrice(currentPrice);
+                        if (sale.getProductName() == null || sale.getProductName().isEmpty()) sale.setProductName(productName);
+                        if (sale.getQuantity() <= 0 || sale.getQuantity() > stock) { tx.setRollbackOnly(); return -1; }
+                    }
+                }
+                int generatedId = -1;
+                try (PreparedStatement insert = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                    insert.setInt(1, sale.getProductId());
+                    insert.setString(2, sale.getProductName());
+                    insert.setInt(3, sale.getQuantity());
+                    insert.setDouble(4, sale.getUnitPrice());
+                    insert.setDouble(5, sale.getTotalPrice());
+                    insert.setInt(6, sale.getUserId());
+                    if (insert.executeUpdate() == 0) { tx.setRollbackOnly(); return -1; }
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        if (keys.next()) generatedId = keys.getInt(1);
+                    }
+                }
+                try (PreparedStatement upd = connection.prepareStatement(updateStock)) {
+                    upd.setInt(1, sale.getQuantity());
+                    upd.setInt(2, sale.getProductId());
+                    upd.executeUpdate();
+                }
+                if (!rollupDAO.addSale(generatedId)) { tx.setRollbackOnly(); return -1; }
+                ProductCache.getInstance().adjustStock(sale.getProductId(), -sale.getQuantity());
+                return generatedId;
+            });
         } catch (SQLException e) {
-            try { connection.rollback(); connection.setAutoCommit(true);} catch (SQLException ignored) {}
             Logger.error("Failed to create sale with stock check", e);
             return -1;
         }
     }
 
+    /**
+     * Sell every line of a cart in one transaction with a single commit. The cart's products are
+     * locked in product_id order, so concurrent checkouts wait for each other instead of deadlocking,
+     * and each product's stock is checked against its total across the cart. The sale lines go out
+     * as one multi-row INSERT and the stock changes as one JDBC batch. All or nothing: if any line
+     * cannot be sold, nothing is. Lines without a unit price or product name get the product's current ones.
+     * @return the sale ids in cart order, or why nothing was sold
+     */
+    public CheckoutResult checkout(List<Sale> cart) {
+        if (cart == null || cart.isEmpty()) return CheckoutResult.rejected(CheckoutResult.Status.EMPTY_CART, 0, 0);
+        TreeMap<Integer, Integer> needed = new TreeMap<>();
+        for (Sale line : cart) {
+            if (line.getQuantity() <= 0) {
+                return CheckoutResult.rejected(CheckoutResult.Status.INVALID_QUANTITY, line.getProductId(), 0);
+            }
+            needed.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        String updateStock = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE product_id = ?";
+        try {
+            return Transaction.run(tx -> {
+                Connection conn = tx.getConnection();
+                Map<Integer, Product> products = lockProducts(conn, new ArrayList<>(needed.keySet()));
+                for (Map.Entry<Integer, Integer> e : needed.entrySet()) {
+                    Product p = products.get(e.getKey());
+                    if (p == null) {
+                        tx.setRollbackOnly();
+                        return CheckoutResult.rejected(CheckoutResult.Status.NOT_FOUND, e.getKey(), 0);
+                    }
+                    if (p.getStockQuantity() < e.getValue()) {
+                        tx.setRollbackOnly();
+                        return CheckoutResult.rejected(CheckoutResult.Status.INSUFFICIENT_STOCK, e.getKey(), p.getStockQuantity());
+                    }
+                }
+                for (Sale line : cart) {
+                    Product p = products.get(line.getProductId());
+                    if (line.getUnitPrice() <= 0) line.setUnitPrice(p.getSellingPrice());
+                    if (line.getProductName() == null || line.getProductName().isEmpty()) line.setProductName(p.getProductName());
+                }
+
+                List<Integer> saleIds = insertSales(conn, cart);
+                if (saleIds.size() != cart.size()) {
+                    tx.setRollbackOnly();
+                    return CheckoutResult.rejected(CheckoutResult.Status.FAILED, 0, 0);
+                }
+                try (PreparedStatement upd = conn.prepareStatement(updateStock)) {
+                    for (Map.Entry<Integer, Integer> e : needed.entrySet()) {
+                        upd.setInt(1, e.getValue());
+                        upd.setInt(2, e.getKey());
+                        upd.addBatch();
+                    }
+                    upd.executeBatch();
+                }
+                // in product order, so the rollup rows are locked in key order across addSales' statements
+                List<Integer> byProduct = new ArrayList<>(saleIds.size());
+                List<Integer> lines = new ArrayList<>();
+                for (int i = 0; i < cart.size(); i++) lines.add(i);
+                lines.sort(Comparator.comparingInt(i -> cart.get(i).getProductId()));
+                for (int i : lines) byProduct.add(saleIds.get(i));
+                if (!rollupDAO.addSales(byProduct)) {
+                    tx.setRollbackOnly();
+                    return CheckoutResult.rejected(CheckoutResult.Status.FAILED, 0, 0);
+                }
+                for (Map.Entry<Integer, Integer> e : needed.entrySet()) {
+                    ProductCache.getInstance().adjustStock(e.getKey(), -e.getValue());
+                }
+                return CheckoutResult.completed(saleIds);
+            });
+        } catch (SQLException e) {
+            Logger.error("Failed to check out a cart of " + cart.size() + " lines", e);
+            return CheckoutResult.rejected(CheckoutResult.Status.FAILED, 0, 0);
+        }
+    }
+
+    /**
+     * Read and lock stock, price and name of the given products (ascending ids), in chunks of CHECKOUT_BATCH_SIZE
+     */
+    private Map<Integer, Product> lockProducts(Connection conn, List<Integer> ids) throws SQLException {
+        Map<Integer, Product> products = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += CHECKOUT_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + CHECKOUT_BATCH_SIZE, ids.size()));
+            String sql = "SELECT product_id, stock_quantity, selling_price, product_name FROM products WHERE product_id IN (" +
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY product_id FOR UPDATE";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) pstmt.setInt(i + 1, chunk.get(i));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Product p = new Product();
+                        p.setProductId(rs.getInt(1));
+                        p.setStockQuantity(rs.getInt(2));
+                        p.setSellingPrice(rs.getDouble(3));
+                        p.setProductName(rs.getString(4));
+                        products.put(p.getProductId(), p);
+                    }
+                }
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Insert the sale lines as multi-row INSERTs of up to CHECKOUT_BATCH_SIZE rows
+     * @return the generated sale ids in line order
+     */
+    private List<Integer> insertSales(Connection conn, List<Sale> lines) throws SQLException {
+        List<Integer> ids = new ArrayList<>(lines.size());
+        for (int from = 0; from < lines.size(); from += CHECKOUT_BATCH_SIZE) {
+            List<Sale> chunk = lines.subList(from, Math.min(from + CHECKOUT_BATCH_SIZE, lines.size()));
+            String sql = "INSERT INTO sales (product_id, product_name, quantity, unit_price, total_price, user_id, sale_date) VALUES " +
+                        String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?, ?, NOW())"));
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                int i = 1;
+                for (Sale line : chunk) {
+                    pstmt.setInt(i++, line.getProductId());
+                    pstmt.setString(i++, line.getProductName());
+                    pstmt.setInt(i++, line.getQuantity());
+                    pstmt.setDouble(i++, line.getUnitPrice());
+                    pstmt.setDouble(i++, line.getTotalPrice());
+                    // 0 means no signed-in user; user_id references users, so it is stored as NULL
+                    if (line.getUserId() > 0) pstmt.setInt(i++, line.getUserId());
+                    else pstmt.setNull(i++, Types.INTEGER);
+                }
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    while (keys.next()) ids.add(keys.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
     /**
      * Get all sales
      */
     public List<Sale> getAllSales() {
         List<Sale> sales = new ArrayList<>();
         String sql = "SELECT * FROM sales ORDER BY sale_date DESC";
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 sales.add(extractSaleFromResultSet(rs));
             }
@@ -134,20 +275,78 @@ public class SaleDAO {
         return sales;
     }
 
+    /**
+     * Get up to limit sales older than the given position, newest first.
+     * Pass null for the first page, then the last sale's date and id for the next one;
+     * each page is an index range read, however deep the user pages.
+     */
+    public List<Sale> getSalesPage(Timestamp beforeDate, int beforeId, int limit) {
+        List<Sale> sales = new ArrayList<>();
+        String sql = beforeDate == null
+            ? "SELECT * FROM sales ORDER BY sale_date DESC, sale_id DESC LIMIT ?"
+            : "SELECT * FROM sales WHERE sale_date < ? OR (sale_date = ? AND sale_id < ?) " +
+              "ORDER BY sale_date DESC, sale_id DESC LIMIT ?";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            if (beforeDate == null) {
+                pstmt.setInt(1, limit);
+            } else {
+                pstmt.setTimestamp(1, beforeDate);
+                pstmt.setTimestamp(2, beforeDate);
+                pstmt.setInt(3, beforeId);
+                pstmt.setInt(4, limit);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sales.add(extractSaleFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to fetch sales page before " + beforeDate + "/" + beforeId, e);
+        }
+        return sales;
+    }
+
+    /**
+     * Pass every sale to the consumer, newest first, without holding them all in memory.
+     * The connection is busy until the last row is read, so the consumer must not query
+     * through the same transaction.
+     * @return number of sales read, or -1 on failure
+     */
+    public int streamSales(Consumer<Sale> consumer) {
+        String sql = "SELECT * FROM sales ORDER BY sale_date DESC, sale_id DESC";
+        int count = 0;
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = DatabaseConnection.prepareStreaming(conn, sql)) {
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(extractSaleFromResultSet(rs));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to stream sales", e);
+            return -1;
+        }
+        return count;
+    }
+
     /**
      * Get sales by date range
      */
     public List<Sale> getSalesByDateRange(Date startDate, Date endDate) {
         List<Sale> sales = new ArrayList<>();
-        String sql = "SELECT * FROM sales WHERE DATE(sale_date) BETWEEN ? AND ? ORDER BY sale_date DESC";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setDate(1, startDate);
-            pstmt.setDate(2, endDate);
+        // half-open range on the raw column so idx_sales_sale_date can be used
+        String sql = "SELECT * FROM sales WHERE sale_date >= ? AND sale_date < ? ORDER BY sale_date DESC";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, startOfDay(startDate));
+            pstmt.setTimestamp(2, startOfNextDay(endDate));
 
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                sales.add(extractSaleFromResultSet(rs));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sales.add(extractSaleFromResultSet(rs));
+                }
             }
         } catch (SQLException e) {
             Logger.error("Failed to fetch sales by date range", e);
@@ -159,10 +358,10 @@ public class SaleDAO {
      * Get total sales for today
      */
     public int getTodaySalesCount() {
-        String sql = "SELECT COUNT(*) FROM sales WHERE DATE(sale_date) = CURDATE()";
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        String sql = "SELECT COUNT(*) FROM sales WHERE sale_date >= CURDATE() AND sale_date < CURDATE() + INTERVAL 1 DAY";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
@@ -176,15 +375,16 @@ public class SaleDAO {
      * Get total sales revenue for a date range
      */
     public double getTotalRevenue(Date startDate, Date endDate) {
-        String sql = "SELECT SUM(total_price) FROM sales WHERE DATE(sale_date) BETWEEN ? AND ?";
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setDate(1, startDate);
-            pstmt.setDate(2, endDate);
+        String sql = "SELECT SUM(total_price) FROM sales WHERE sale_date >= ? AND sale_date < ?";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, startOfDay(startDate));
+            pstmt.setTimestamp(2, startOfNextDay(endDate));
 
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble(1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getDouble(1);
+                }
             }
         } catch (SQLException e) {
             Logger.error("Failed to get total revenue", e);
@@ -197,9 +397,9 @@ public class SaleDAO {
      */
     public int getLast7DaysSalesCount() {
         String sql = "SELECT COUNT(*) FROM sales WHERE sale_date >= DATE_SUB(NOW(), INTERVAL 7 DAY)";
-        try {
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             if (rs.next()) {
                 return rs.getInt(1);
             }
@@ -218,12 +418,14 @@ public class SaleDAO {
         String where = lastDays > 0 ? " WHERE sale_date >= DATE_SUB(NOW(), INTERVAL ? DAY)" : "";
         String group = " GROUP BY product_name ORDER BY qty DESC LIMIT ?";
         String sql = base + where + group;
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             int idx = 1;
             if (lastDays > 0) ps.setInt(idx++, lastDays);
             ps.setInt(idx, limit);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) result.put(rs.getString(1), rs.getInt(2));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) result.put(rs.getString(1), rs.getInt(2));
+            }
         } catch (SQLException e) {
             Logger.error("Failed to get top selling products", e);
         }
@@ -236,10 +438,19 @@ public class SaleDAO {
     public boolean deleteSale(int saleId) {
         String sql = "DELETE FROM sales WHERE sale_id = ?";
         try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setInt(1, saleId);
-            int rows = pstmt.executeUpdate();
-            return rows > 0;
+            return Transaction.run(tx -> {
+                Sale old = lockSale(tx.getConnection(), saleId);
+                if (old == null) return false;
+                try (PreparedStatement pstmt = tx.getConnection().prepareStatement(sql)) {
+                    pstmt.setInt(1, saleId);
+                    if (pstmt.executeUpdate() == 0) return false;
+                }
+                if (!rollupDAO.applyDelta(saleDay(old), old.getProductId(), -old.getQuantity(), -old.getTotalPrice(), -1)) {
+                    tx.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
         } catch (SQLException e) {
             Logger.error("Failed to delete sale: " + saleId, e);
             return false;
@@ -252,19 +463,60 @@ public class SaleDAO {
     public boolean updateSale(Sale sale) {
         String sql = "UPDATE sales SET quantity = ?, unit_price = ?, total_price = ? WHERE sale_id = ?";
         try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setInt(1, sale.getQuantity());
-            pstmt.setDouble(2, sale.getUnitPrice());
-            pstmt.setDouble(3, sale.getTotalPrice());
-            pstmt.setInt(4, sale.getSaleId());
-            int rows = pstmt.executeUpdate();
-            return rows > 0;
+            return Transaction.run(tx -> {
+                Sale old = lockSale(tx.getConnection(), sale.getSaleId());
+                if (old == null) return false;
+                try (PreparedStatement pstmt = tx.getConnection().prepareStatement(sql)) {
+                    pstmt.setInt(1, sale.getQuantity());
+                    pstmt.setDouble(2, sale.getUnitPrice());
+                    pstmt.setDouble(3, sale.getTotalPrice());
+                    pstmt.setInt(4, sale.getSaleId());
+                    if (pstmt.executeUpdate() == 0) return false;
+                }
+                if (!rollupDAO.applyDelta(saleDay(old), old.getProductId(), sale.getQuantity() - old.getQuantity(),
+                        sale.getTotalPrice() - old.getTotalPrice(), 0)) {
+                    tx.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
         } catch (SQLException e) {
             Logger.error("Failed to update sale: " + sale.getSaleId(), e);
             return false;
         }
     }
 
+    /**
+     * Read a sale and lock its row until the transaction ends, or null if it does not exist
+     */
+    private Sale lockSale(Connection conn, int saleId) throws SQLException {
+        String sql = "SELECT * FROM sales WHERE sale_id = ? FOR UPDATE";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, saleId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? extractSaleFromResultSet(rs) : null;
+            }
+        }
+    }
+
+    private static Date saleDay(Sale sale) {
+        return Date.valueOf(sale.getSaleDate().toLocalDateTime().toLocalDate());
+    }
+
+    /**
+     * Midnight at the start of the given day
+     */
+    private static Timestamp startOfDay(Date date) {
+        return Timestamp.valueOf(date.toLocalDate().atStartOfDay());
+    }
+
+    /**
+     * Midnight after the given day, the exclusive end of an inclusive date range
+     */
+    private static Timestamp startOfNextDay(Date date) {
+        return Timestamp.valueOf(date.toLocalDate().plusDays(1).atStartOfDay());
+    }
+
     /**
      * Extract Sale object from ResultSet
      */
@@ -0,0 +1,194 @@
+package dao;
+
+import models.SalesTotals;
+import database.DatabaseConnection;
+import database.Transaction;
+import java.sql.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import utils.Logger;
+
+/**
+ * Sales Rollup Data Access Object
+ * Maintains sales_daily_rollup: one row per day and product with quantity, revenue and
+ * number of sales. SaleDAO keeps it current inside the same transaction as each sale
+ * insert, update and delete, so reports read a few rows per day instead of every sale.
+ * Run main() to rebuild it from the sales table (backfill or repair).
+ */
+public class SalesRollupDAO {
+    // sale ids per INSERT ... SELECT in addSales
+    private static final int SALES_PER_STATEMENT = 500;
+
+    /**
+     * Add one sale row to its day's rollup; call in the same transaction as the insert
+     */
+    public boolean addSale(int saleId) {
+        String sql = "INSERT INTO sales_daily_rollup (sale_day, product_id, product_name, quantity, revenue, sale_count) " +
+                    "SELECT DATE(sale_date), product_id, product_name, quantity, total_price, 1 FROM sales WHERE sale_id = ? " +
+                    "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), revenue = revenue + VALUES(revenue), " +
+                    "sale_count = sale_count + 1, product_name = VALUES(product_name)";
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, saleId);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            Logger.error("Failed to add sale to rollup: " + saleId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Add many sale rows to their days' rollups, SALES_PER_STATEMENT ids per statement; call in the
+     * same transaction as the insert. Each statement writes its rows in (day, product) order, so
+     * concurrent checkouts take their rollup locks in the same order when the ids come in product order.
+     */
+    public boolean addSales(List<Integer> saleIds) {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            for (int from = 0; from < saleIds.size(); from += SALES_PER_STATEMENT) {
+                List<Integer> chunk = saleIds.subList(from, Math.min(from + SALES_PER_STATEMENT, saleIds.size()));
+                String sql = "INSERT INTO sales_daily_rollup (sale_day, product_id, product_name, quantity, revenue, sale_count) " +
+                            "SELECT DATE(sale_date), product_id, MAX(product_name), SUM(quantity), SUM(total_price), COUNT(*) " +
+                            "FROM sales WHERE sale_id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") " +
+                            "GROUP BY DATE(sale_date), product_id ORDER BY DATE(sale_date), product_id " +
+                            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), revenue = revenue + VALUES(revenue), " +
+                            "sale_count = sale_count + VALUES(sale_count), product_name = VALUES(product_name)";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) pstmt.setInt(i + 1, chunk.get(i));
+                    if (pstmt.executeUpdate() == 0) return false;
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            Logger.error("Failed to add " + saleIds.size() + " sales to rollup", e);
+            return false;
+        }
+    }
+
+    /**
+     * Apply a change to one day/product row; rows left without sales are removed
+     */
+    public boolean applyDelta(Date saleDay, int productId, int quantityDelta, double revenueDelta, int countDelta) {
+        String update = "UPDATE sales_daily_rollup SET quantity = quantity + ?, revenue = revenue + ?, sale_count = sale_count + ? " +
+                       "WHERE sale_day = ? AND product_id = ?";
+        String prune = "DELETE FROM sales_daily_rollup WHERE sale_day = ? AND product_id = ? AND sale_count <= 0";
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(update)) {
+                pstmt.setInt(1, quantityDelta);
+                pstmt.setDouble(2, revenueDelta);
+                pstmt.setInt(3, countDelta);
+                pstmt.setDate(4, saleDay);
+                pstmt.setInt(5, productId);
+                pstmt.executeUpdate();
+            }
+            if (countDelta < 0) {
+                try (PreparedStatement pstmt = conn.prepareStatement(prune)) {
+                    pstmt.setDate(1, saleDay);
+                    pstmt.setInt(2, productId);
+                    pstmt.executeUpdate();
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            Logger.error("Failed to update sales rollup for product " + productId + " on " + saleDay, e);
+            return false;
+        }
+    }
+
+    /**
+     * Drop rollup rows of a product that no longer has any sales (after a cascading product delete)
+     */
+    public boolean removeOrphanedProduct(int productId) {
+        String sql = "DELETE FROM sales_daily_rollup WHERE product_id = ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM sales WHERE product_id = ?)";
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, productId);
+            pstmt.setInt(2, productId);
+            pstmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            Logger.error("Failed to clean sales rollup for product " + productId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Recompute the rollup from the sales table in one transaction. Days before the oldest
+     * remaining sale are kept, since their sales may have been archived (services.ArchiveService).
+     * @return number of rollup rows written, or -1 on failure
+     */
+    public int rebuild() {
+        String delete = "DELETE FROM sales_daily_rollup WHERE sale_day >= (SELECT DATE(MIN(sale_date)) FROM sales)";
+        String insert = "INSERT INTO sales_daily_rollup (sale_day, product_id, product_name, quantity, revenue, sale_count) " +
+                       "SELECT DATE(sale_date), product_id, MAX(product_name), SUM(quantity), SUM(total_price), COUNT(*) " +
+                       "FROM sales GROUP BY DATE(sale_date), product_id";
+        try {
+            return Transaction.run(tx -> {
+                try (Statement stmt = tx.getConnection().createStatement()) {
+                    // DELETE rather than TRUNCATE so readers never see an empty rollup
+                    stmt.executeUpdate(delete);
+                    return stmt.executeUpdate(insert);
+                }
+            });
+        } catch (SQLException e) {
+            Logger.error("Failed to rebuild sales rollup", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Get quantity, revenue and sale count for an inclusive date range
+     */
+    public SalesTotals getTotals(Date startDate, Date endDate) {
+        String sql = "SELECT COALESCE(SUM(quantity), 0), COALESCE(SUM(revenue), 0), COALESCE(SUM(sale_count), 0) " +
+                    "FROM sales_daily_rollup WHERE sale_day BETWEEN ? AND ?";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, startDate);
+            pstmt.setDate(2, endDate);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new SalesTotals(rs.getInt(1), rs.getDouble(2), rs.getInt(3));
+                }
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to get sales totals", e);
+        }
+        return new SalesTotals(0, 0.0, 0);
+    }
+
+    /**
+     * Get top selling products (by total quantity) for an inclusive date range
+     */
+    public Map<String, Integer> getTopSellingProducts(int limit, Date startDate, Date endDate) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        String sql = "SELECT product_name, SUM(quantity) qty FROM sales_daily_rollup " +
+                    "WHERE sale_day BETWEEN ? AND ? GROUP BY product_name ORDER BY qty DESC LIMIT ?";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, startDate);
+            pstmt.setDate(2, endDate);
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) result.put(rs.getString(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to get top selling products from rollup", e);
+        }
+        return result;
+    }
+
+    /**
+     * Rebuild the rollup from the sales table
+     */
+    public static void main(String[] args) {
+        long start = System.currentTimeMillis();
+        int rows = new SalesRollupDAO().rebuild();
+        if (rows >= 0) {
+            Logger.info("Rebuilt sales_daily_rollup: " + rows + " rows in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        DatabaseConnection.getInstance().closeConnection();
+    }
+}
@@ -1,6 +1,7 @@
 package dao;
 
 import models.User;
+import models.UserSummary;
 import database.DatabaseConnection;
 import utils.PasswordUtils;
 import java.sql.*;
@@ -14,24 +15,21 @@ import utils.Logger;
  * Demonstrates Data Access Layer pattern
  */
 public class UserDAO {
-    private Connection connection;
-
-    public UserDAO() {
-        this.connection = DatabaseConnection.getInstance().getConnection();
-    }
 
     /**
      * Authenticate user login using hashed password
      */
     public User authenticate(String username, String password) {
         String sql = "SELECT * FROM users WHERE username = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String stored = rs.getString("password");
-                if (PasswordUtils.verifyPassword(password, stored) || password.equals(stored)) { // fallback if legacy plain text exists
-                    return mapRow(rs);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    String stored = rs.getString("password");
+                    if (PasswordUtils.verifyPassword(password, stored) || password.equals(stored)) { // fallback if legacy plain text exists
+                        return mapRow(rs);
+                    }
                 }
             }
         } catch (SQLException e) {
@@ -45,7 +43,8 @@ public class UserDAO {
      */
     public boolean createUser(User user) {
         String sql = "INSERT INTO users (username, password, full_name, role) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, user.getUsername());
             String hashed = PasswordUtils.hashPassword(user.getPassword());
             pstmt.setString(2, hashed);
@@ -65,11 +64,13 @@ public class UserDAO {
      */
     public User getUserById(int userId) {
         String sql = "SELECT * FROM users WHERE user_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return mapRow(rs);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapRow(rs);
+                }
             }
         } catch (SQLException e) {
             Logger.error("Failed to get user by id: " + userId, e);
@@ -83,8 +84,9 @@ public class UserDAO {
     public List<User> getAllUsers() {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM users";
-        try (Statement stmt = connection.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 users.add(mapRow(rs));
             }
@@ -94,6 +96,24 @@ public class UserDAO {
         return users;
     }
 
+    /**
+     * Get the grid columns of every user, by id; no password hashes leave the database
+     */
+    public List<UserSummary> getUserSummaries() {
+        List<UserSummary> users = new ArrayList<>();
+        String sql = "SELECT user_id, username, full_name, role FROM users ORDER BY user_id";
+        try (Connection conn = DatabaseConnection.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                users.add(new UserSummary(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+            }
+        } catch (SQLException e) {
+            Logger.error("Failed to get user summaries", e);
+        }
+        return users;
+    }
+
     /**
      * Update user (rehash if password provided)
      */
@@ -102,7 +122,8 @@ public class UserDAO {
         String sql = hasPassword ?
             "UPDATE users SET username = ?, password = ?, full_name = ?, role = ? WHERE user_id = ?" :
             "UPDATE users SET username = ?, full_name = ?, role = ? WHERE user_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             int idx = 1;
             pstmt.setString(idx++, user.getUsername());
             if (hasPassword) {
@@ -125,7 +146,8 @@ public class UserDAO {
      */
     public boolean deleteUser(int userId) {
         String sql = "DELETE FROM users WHERE user_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             int rowsAffected = pstmt.executeUpdate();
             return rowsAffected > 0;
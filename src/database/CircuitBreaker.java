@@ -0,0 +1,156 @@
+package database;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import utils.Logger;
+
+/**
+ * Circuit Breaker
+ * Guards opening new database connections. After a run of consecutive connect failures the
+ * breaker opens and callers fail immediately instead of each waiting on a TCP timeout.
+ * Once the open period has passed, a single caller is let through as a half-open probe:
+ * success closes the breaker, failure opens it again for twice as long (up to a cap).
+ * Listeners are told about every state change, e.g. to show "database unavailable" in the UI.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Receives state changes; called on the thread that caused the change
+     */
+    public interface Listener {
+        void onStateChange(String name, State from, State to, SQLException cause);
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long baseOpenMs;
+    private final long maxOpenMs;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openMs;
+    private long openUntil;
+    private boolean probeInFlight;
+    private SQLException lastFailure;
+
+    public CircuitBreaker(String name, int failureThreshold, long baseOpenMs, long maxOpenMs) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.baseOpenMs = baseOpenMs;
+        this.maxOpenMs = Math.max(baseOpenMs, maxOpenMs);
+        this.openMs = baseOpenMs;
+    }
+
+    /**
+     * Whether a connect failure means the server is unreachable (as opposed to e.g. bad credentials)
+     */
+    public static boolean isConnectFailure(SQLException e) {
+        if (e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException) return true;
+        String sqlState = e.getSQLState();
+        return sqlState != null && sqlState.startsWith("08");
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Ask to open a connection. Throws straight away while the breaker is open;
+     * after the open period one caller at a time is allowed through as the probe.
+     */
+    public void acquirePermission() throws SQLTransientConnectionException {
+        State from;
+        synchronized (this) {
+            if (state == State.CLOSED) return;
+            long now = System.currentTimeMillis();
+            if (probeInFlight || now < openUntil) {
+                throw new SQLTransientConnectionException("Database '" + name + "' is unavailable, retrying in "
+                    + Math.max(0, openUntil - now) + " ms"
+                    + (lastFailure == null ? "" : " (last error: " + lastFailure.getMessage() + ")"), "08001", lastFailure);
+            }
+            probeInFlight = true;
+            from = state;
+            state = State.HALF_OPEN;
+        }
+        fire(from, State.HALF_OPEN, null);
+    }
+
+    /**
+     * A connection was opened or validated successfully
+     */
+    public void onSuccess() {
+        State from;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            probeInFlight = false;
+            if (state == State.CLOSED) return;
+            from = state;
+            state = State.CLOSED;
+            openMs = baseOpenMs;
+            lastFailure = null;
+        }
+        fire(from, State.CLOSED, null);
+    }
+
+    /**
+     * Opening a connection failed; only connect failures count towards opening the breaker
+     */
+    public void onFailure(SQLException e) {
+        State from;
+        synchronized (this) {
+            if (!isConnectFailure(e)) {
+                // the server answered, so it is reachable: give a half-open probe a clean result
+                if (state == State.HALF_OPEN) probeInFlight = false;
+                return;
+            }
+            lastFailure = e;
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN) {
+                openMs = Math.min(maxOpenMs, openMs * 2);
+            } else if (state == State.OPEN || consecutiveFailures < failureThreshold) {
+                return;
+            }
+            from = state;
+            state = State.OPEN;
+            probeInFlight = false;
+            // jitter so many terminals restarting together do not probe the server in lockstep
+            openUntil = System.currentTimeMillis() + openMs + ThreadLocalRandom.current().nextLong(openMs / 4 + 1);
+        }
+        fire(from, State.OPEN, e);
+    }
+
+    private void fire(State from, State to, SQLException cause) {
+        if (to == State.OPEN) {
+            Logger.warn("Database '" + name + "' unreachable, failing fast for ~" + openMs + " ms: "
+                + (cause == null ? "" : cause.getMessage()));
+        } else if (to == State.CLOSED) {
+            Logger.info("Database '" + name + "' reachable again");
+        }
+        for (Listener l : listeners) {
+            try {
+                l.onStateChange(name, from, to, cause);
+            } catch (RuntimeException ex) {
+                Logger.error("Circuit breaker listener failed", ex);
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker[" + name + ", " + state + ", failures=" + consecutiveFailures + "]";
+    }
+}
@@ -0,0 +1,799 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import utils.Logger;
+
+/**
+ * Connection Pool Class
+ * Keeps a bounded set of physical MySQL connections that DAOs borrow per operation.
+ * Borrowed connections are proxies: calling close() hands the connection back to the pool
+ * instead of closing the socket, so DAOs simply use try-with-resources.
+ * Statements created through a borrowed connection are tracked and closed (together with
+ * their result sets) when the connection is returned, and prepared statements are served
+ * from a per-connection {@link StatementCache}. Executions are timed into {@link QueryMetrics},
+ * and slow ones are written to the {@link SlowQueryLog}. With leak detection on, every handed-out
+ * object is followed by the {@link LeakDetector}.
+ */
+public class ConnectionPool {
+    private final String name;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final int validationTimeoutSec;
+    private final long validationIntervalMs;
+    private final int statementCacheSize;
+    private final boolean readOnly;
+    private final int connectRetries;
+    private final long connectBackoffMs;
+    private final CircuitBreaker breaker;
+
+    // idle connections, most recently returned first so warm sockets are reused
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    // one permit per connection that may be handed out at the same time
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+    // time of the last statement that may have modified data, used for read-after-write routing
+    private volatile long lastWriteAt;
+
+    // metrics
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder closedCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConnectionPool(String name, String url, String user, String password,
+                          int minSize, int maxSize, long borrowTimeoutMs, long idleTimeoutMs,
+                          long maxLifetimeMs, int validationTimeoutSec, long validationIntervalMs,
+                          long housekeepingIntervalMs, int statementCacheSize, boolean readOnly,
+                          int connectRetries, long connectBackoffMs, CircuitBreaker breaker) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.name = name;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.validationIntervalMs = validationIntervalMs;
+        this.statementCacheSize = statementCacheSize;
+        this.readOnly = readOnly;
+        this.connectRetries = connectRetries;
+        this.connectBackoffMs = connectBackoffMs;
+        this.breaker = breaker;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-" + name + "-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        fillToMinimum();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingIntervalMs, housekeepingIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the borrow timeout for one to become free.
+     * The returned connection must be closed to give it back to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) throw new SQLException("Connection pool '" + name + "' is shut down");
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (!acquired) {
+            borrowTimeouts.increment();
+            throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMs
+                + " ms waiting for a connection from pool '" + name + "' (max " + maxSize + ")");
+        }
+
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (isUsable(pc)) break;
+                discard(pc);
+            }
+            if (pc == null) pc = connect();
+            pc.lastBorrowedAt = System.currentTimeMillis();
+            borrowCount.increment();
+            return pc.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Snapshot of the pool's counters
+     */
+    public Stats getStats() {
+        long borrows = borrowCount.sum();
+        return new Stats(name, totalConnections.get(), idle.size(), maxSize - permits.availablePermits(),
+            permits.getQueueLength(), borrows, borrowTimeouts.sum(), createdCount.sum(), closedCount.sum(),
+            validationFailures.sum(),
+            borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.sum() / borrows),
+            TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()));
+    }
+
+    /**
+     * Circuit breaker guarding new connections to this pool's server
+     */
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Time (epoch millis) of the most recent write executed through this pool, or 0
+     */
+    public long getLastWriteAt() {
+        return lastWriteAt;
+    }
+
+    /**
+     * Close all idle connections and refuse further borrows.
+     * Connections still in use are closed when they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) discard(pc);
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long now = System.currentTimeMillis();
+        if (now - pc.createdAt >= maxLifetimeMs) return false;
+        // skip the validation round trip for connections that were in use moments ago
+        if (now - pc.lastReturnedAt < validationIntervalMs) return true;
+        try {
+            if (pc.physical.isValid(validationTimeoutSec)) return true;
+        } catch (SQLException ignored) {
+            // treated as invalid below
+        }
+        validationFailures.increment();
+        return false;
+    }
+
+    // open a connection for a borrower: one attempt, and only with the breaker's permission, so
+    // borrowers fail immediately while the database is known to be unreachable (idle connections
+    // are still handed out then); retrying is left to the housekeeper
+    private PooledConnection connect() throws SQLException {
+        breaker.acquirePermission();
+        PooledConnection pc;
+        try {
+            pc = open();
+        } catch (SQLException e) {
+            breaker.onFailure(e);
+            throw e;
+        } catch (RuntimeException e) {
+            breaker.onFailure(new SQLException(e));
+            throw e;
+        }
+        breaker.onSuccess();
+        return pc;
+    }
+
+    // open a connection for fillToMinimum (the housekeeper, and the half-open probe while the
+    // breaker is open), retrying connect failures with jittered exponential backoff
+    private PooledConnection create() throws SQLException {
+        SQLException failure = null;
+        for (int attempt = 0; attempt <= connectRetries; attempt++) {
+            if (attempt > 0) {
+                long backoff = connectBackoffMs << (attempt - 1);
+                try {
+                    Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            try {
+                return open();
+            } catch (SQLException e) {
+                if (!CircuitBreaker.isConnectFailure(e)) throw e;
+                failure = e;
+            }
+        }
+        throw failure != null ? failure : new SQLException("Interrupted while connecting to the database");
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        PooledConnection pc;
+        try {
+            pc = new PooledConnection(physical);
+        } catch (SQLException e) {
+            physical.close();
+            throw e;
+        }
+        totalConnections.incrementAndGet();
+        createdCount.increment();
+        return pc;
+    }
+
+    private void discard(PooledConnection pc) {
+        pc.statementCache.closeAll();
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            Logger.warn("Error closing pooled connection: " + e.getMessage());
+        }
+        totalConnections.decrementAndGet();
+        closedCount.increment();
+    }
+
+    // called when a lease is closed
+    private void giveBack(PooledConnection pc, boolean stateChanged) {
+        try {
+            if (!pc.physical.isClosed()) {
+                // never let one caller's transaction or session settings leak into the next borrower
+                if (!pc.physical.getAutoCommit()) {
+                    pc.physical.rollback();
+                    pc.physical.setAutoCommit(true);
+                }
+                if (stateChanged) {
+                    pc.physical.setReadOnly(readOnly);
+                    pc.physical.setTransactionIsolation(pc.defaultIsolation);
+                }
+            }
+        } catch (SQLException e) {
+            Logger.warn("Discarding connection that could not be reset: " + e.getMessage());
+            discard(pc);
+            permits.release();
+            return;
+        }
+
+        pc.lastReturnedAt = System.currentTimeMillis();
+        boolean expired = pc.lastReturnedAt - pc.createdAt >= maxLifetimeMs;
+        boolean closed;
+        try {
+            closed = pc.physical.isClosed();
+        } catch (SQLException e) {
+            closed = true;
+        }
+        if (shutdown || expired || closed) {
+            discard(pc);
+        } else {
+            idle.offerFirst(pc);
+        }
+        permits.release();
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            // walk oldest-returned first so the warmest connections survive
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            List<PooledConnection> evicted = new ArrayList<>();
+            while (it.hasNext()) {
+                PooledConnection pc = it.next();
+                boolean expired = now - pc.createdAt >= maxLifetimeMs;
+                boolean idleTooLong = now - pc.lastReturnedAt >= idleTimeoutMs
+                    && totalConnections.get() - evicted.size() > minSize;
+                if ((expired || idleTooLong) && idle.removeFirstOccurrence(pc)) {
+                    evicted.add(pc);
+                }
+            }
+            for (PooledConnection pc : evicted) discard(pc);
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            Logger.error("Connection pool housekeeping failed", e);
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!shutdown && totalConnections.get() < minSize) {
+            if (!permits.tryAcquire()) return;
+            try {
+                // while the breaker is open this also serves as the periodic half-open probe
+                breaker.acquirePermission();
+            } catch (SQLException e) {
+                permits.release();
+                return;
+            }
+            try {
+                PooledConnection pc = create();
+                breaker.onSuccess();
+                pc.lastReturnedAt = System.currentTimeMillis();
+                idle.offerLast(pc);
+            } catch (SQLException e) {
+                breaker.onFailure(e);
+                Logger.warn("Could not open connection for pool '" + name + "': " + e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        final long createdAt = System.currentTimeMillis();
+        final int defaultIsolation;
+        final StatementCache statementCache = new StatementCache(statementCacheSize);
+        volatile long lastBorrowedAt;
+        volatile long lastReturnedAt;
+
+        PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.defaultIsolation = physical.getTransactionIsolation();
+            if (readOnly) physical.setReadOnly(true);
+        }
+
+        Connection lease() {
+            Lease lease = new Lease(this);
+            Connection proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                lease);
+            lease.leak = LeakDetector.track(LeakDetector.Kind.CONNECTION, proxy);
+            return proxy;
+        }
+    }
+
+    /**
+     * One borrow of a pooled connection. After close() every call fails, so a stale
+     * reference can never touch a connection that has been handed to someone else.
+     */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pc;
+        private final List<TrackedStatement> openStatements = new ArrayList<>();
+        private boolean closed;
+        private boolean stateChanged;
+        private LeakDetector.Handle leak; // null unless leak detection is on
+
+        Lease(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        // statements the caller forgot to close are closed here
+                        for (TrackedStatement ts : new ArrayList<>(openStatements)) ts.releaseUnclosed();
+                        closed = true;
+                        if (leak != null) leak.close();
+                        giveBack(pc, stateChanged);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pc.physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + name + "]" + (closed ? " (returned)" : "");
+                case "setReadOnly":
+                case "setTransactionIsolation":
+                    stateChanged = true;
+                    break;
+                default:
+                    break;
+            }
+            if (closed) throw new SQLException("Connection has already been returned to the pool");
+            if (method.getName().equals("prepareStatement") && isCacheable(method)) {
+                return prepareCached(proxy, method, args);
+            }
+            Object result = invokeTarget(pc.physical, method, args);
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return track(proxy, method.getReturnType(), (Statement) result, null, sql);
+            }
+            return result;
+        }
+
+        // prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) are cached
+        private boolean isCacheable(Method method) {
+            Class<?>[] types = method.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+
+        private Object prepareCached(Object proxy, Method method, Object[] args) throws Throwable {
+            String key = args.length == 1 ? (String) args[0] : args[0] + "\u0000" + args[1];
+            StatementCache.Entry entry = pc.statementCache.checkOut(key,
+                () -> (PreparedStatement) invokeTarget(pc.physical, method, args));
+            if (entry == null) {
+                Statement uncached = (Statement) invokeTarget(pc.physical, method, args);
+                return track(proxy, PreparedStatement.class, uncached, null, (String) args[0]);
+            }
+            return track(proxy, PreparedStatement.class, entry.statement, entry, (String) args[0]);
+        }
+
+        private Object track(Object connectionProxy, Class<?> type, Statement target,
+                             StatementCache.Entry entry, String sql) {
+            TrackedStatement ts = new TrackedStatement(this, connectionProxy, target, entry, sql);
+            openStatements.add(ts);
+            Object proxy = Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type}, ts);
+            ts.leak = LeakDetector.track(LeakDetector.Kind.STATEMENT, proxy);
+            return proxy;
+        }
+    }
+
+    /**
+     * A statement handed out through a lease. close() closes its result sets and then either
+     * checks a cached statement back in or closes an uncached one.
+     */
+    private final class TrackedStatement implements InvocationHandler {
+        private final Lease lease;
+        private final Object connectionProxy;
+        private final Statement target;
+        private final StatementCache.Entry entry;
+        private final String sql; // null for plain Statements, whose SQL comes with each execute call
+        private final List<ResultSet> results = new ArrayList<>(2);
+        private List<Object> params; // bound parameters, only captured while the slow query log is on
+        private LeakDetector.Handle leak;
+        private boolean closed;
+
+        TrackedStatement(Lease lease, Object connectionProxy, Statement target,
+                         StatementCache.Entry entry, String sql) {
+            this.lease = lease;
+            this.connectionProxy = connectionProxy;
+            this.target = target;
+            this.entry = entry;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (leak != null) leak.close();
+                    release();
+                    return null;
+                case "isClosed":
+                    return closed || target.isClosed();
+                case "getConnection":
+                    return connectionProxy;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TrackedStatement[" + target + "]";
+                default:
+                    break;
+            }
+            if (closed) throw new SQLException("Statement is closed");
+            String name = method.getName();
+            if (isPossibleWrite(name)) lastWriteAt = System.currentTimeMillis();
+            if (name.startsWith("execute")) {
+                try {
+                    if (QueryMetrics.isEnabled() || SlowQueryLog.isEnabled()) return timedExecute(proxy, method, args);
+                    Object result = invokeTarget(target, method, args);
+                    return result instanceof ResultSet ? trackResult(proxy, (ResultSet) result, null) : result;
+                } catch (SQLException e) {
+                    // DAOs log and swallow errors, so make sure a surrounding transaction cannot commit half the work
+                    Transaction tx = Transaction.current();
+                    if (tx != null) tx.setRollbackOnly();
+                    throw e;
+                }
+            }
+            if (SlowQueryLog.isEnabled()) captureParameter(name, args);
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof ResultSet) return trackResult(proxy, (ResultSet) result, null);
+            return result;
+        }
+
+        // remember setXxx(index, value) arguments so a slow execution can be logged with them
+        private void captureParameter(String name, Object[] args) {
+            if (name.equals("clearParameters")) {
+                params = null;
+                return;
+            }
+            if (!name.startsWith("set") || args == null || args.length < 2 || !(args[0] instanceof Integer)) return;
+            int index = (Integer) args[0] - 1;
+            if (index < 0) return;
+            if (params == null) params = new ArrayList<>();
+            while (params.size() <= index) params.add(null);
+            params.set(index, name.equals("setNull") ? null : args[1]);
+        }
+
+        private Object timedExecute(Object proxy, Method method, Object[] args) throws SQLException {
+            String statementSql = sql != null ? sql
+                : args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            boolean metrics = QueryMetrics.isEnabled();
+            // the stack walk is not free, so without metrics it waits until a statement turns out slow
+            String metricsMethod = metrics ? QueryMetrics.currentDaoMethod() : null;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(target, method, args);
+            } catch (SQLException | RuntimeException e) {
+                if (metrics) QueryMetrics.record(metricsMethod, statementSql, System.nanoTime() - start, 0, true);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            if (metrics) QueryMetrics.record(metricsMethod, statementSql, elapsed, affectedRows(result), false);
+            boolean slow = SlowQueryLog.isSlow(elapsed);
+            String daoMethod = metrics || !slow ? metricsMethod : QueryMetrics.currentDaoMethod();
+            // still on the caller's stack here, so find the controller now even if rows are only known at close
+            String controller = slow ? SlowQueryLog.currentController() : null;
+            List<Object> boundParams = slow && params != null ? new ArrayList<>(params) : null;
+            if (result instanceof ResultSet) {
+                if (!metrics && !slow) return trackResult(proxy, (ResultSet) result, null);
+                return trackResult(proxy, (ResultSet) result, rows -> {
+                    if (metrics) QueryMetrics.addRows(daoMethod, statementSql, rows);
+                    if (slow) SlowQueryLog.record(statementSql, boundParams, elapsed, rows, daoMethod, controller);
+                });
+            }
+            if (slow) SlowQueryLog.record(statementSql, boundParams, elapsed, affectedRows(result), daoMethod, controller);
+            return result;
+        }
+
+        private ResultSet trackResult(Object statementProxy, ResultSet rs, LongConsumer onClose) {
+            // result sets the driver closed implicitly (e.g. by re-executing) still need their close() bookkeeping
+            results.removeIf(r -> {
+                if (!isClosedQuietly(r)) return false;
+                closeQuietly(r);
+                return true;
+            });
+            if (onClose == null) {
+                if (!LeakDetector.isEnabled()) {
+                    results.add(rs);
+                    return rs;
+                }
+                onClose = rows -> { };
+            }
+            CountingResultSet handler = new CountingResultSet(rs, statementProxy, onClose);
+            ResultSet counted = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, handler);
+            handler.leak = LeakDetector.track(LeakDetector.Kind.RESULT_SET, counted);
+            results.add(counted);
+            return counted;
+        }
+
+        // called when the lease is closed while this statement is still open
+        void releaseUnclosed() {
+            if (leak != null) leak.closedByPool();
+            release();
+        }
+
+        void release() {
+            if (closed) return;
+            closed = true;
+            lease.openStatements.remove(this);
+            for (ResultSet rs : results) closeQuietly(rs);
+            results.clear();
+            if (entry != null) {
+                lease.pc.statementCache.checkIn(entry);
+            } else {
+                try {
+                    target.close();
+                } catch (SQLException e) {
+                    Logger.warn("Error closing statement: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Result set wrapper that counts rows read and reports the total once on close
+     */
+    private static final class CountingResultSet implements InvocationHandler {
+        private final ResultSet target;
+        private final Object statementProxy;
+        private final LongConsumer onClose;
+        private LeakDetector.Handle leak;
+        private long rows;
+        private boolean reported;
+
+        CountingResultSet(ResultSet target, Object statementProxy, LongConsumer onClose) {
+            this.target = target;
+            this.statementProxy = statementProxy;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    boolean hasRow = target.next();
+                    if (hasRow) rows++;
+                    return hasRow;
+                case "close":
+                    if (!reported) {
+                        reported = true;
+                        onClose.accept(rows);
+                        if (leak != null) leak.close();
+                    }
+                    target.close();
+                    return null;
+                case "getStatement":
+                    return statementProxy;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) return true;
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return invokeTarget(target, method, args);
+        }
+    }
+
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer) return Math.max(0, (Integer) result);
+        if (result instanceof Long) return Math.max(0, (Long) result);
+        long total = 0;
+        if (result instanceof int[]) for (int n : (int[]) result) if (n > 0) total += n;
+        if (result instanceof long[]) for (long n : (long[]) result) if (n > 0) total += n;
+        return total;
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new SQLException(cause);
+        } catch (IllegalAccessException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    private static boolean isPossibleWrite(String methodName) {
+        switch (methodName) {
+            case "executeUpdate":
+            case "executeLargeUpdate":
+            case "executeBatch":
+            case "executeLargeBatch":
+            case "execute":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isClosedQuietly(ResultSet rs) {
+        try {
+            return rs.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void closeQuietly(ResultSet rs) {
+        try {
+            rs.close();
+        } catch (SQLException ignored) {
+            // the owning statement is being released or reused anyway
+        }
+    }
+
+    /**
+     * Pool counters at a point in time
+     */
+    public static final class Stats {
+        private final String poolName;
+        private final int totalConnections;
+        private final int idleConnections;
+        private final int activeConnections;
+        private final int waitingThreads;
+        private final long borrowCount;
+        private final long borrowTimeouts;
+        private final long createdCount;
+        private final long closedCount;
+        private final long validationFailures;
+        private final long avgWaitMicros;
+        private final long maxWaitMicros;
+
+        Stats(String poolName, int totalConnections, int idleConnections, int activeConnections,
+              int waitingThreads, long borrowCount, long borrowTimeouts, long createdCount,
+              long closedCount, long validationFailures, long avgWaitMicros, long maxWaitMicros) {
+            this.poolName = poolName;
+            this.totalConnections = totalConnections;
+            this.idleConnections = idleConnections;
+            this.activeConnections = activeConnections;
+            this.waitingThreads = waitingThreads;
+            this.borrowCount = borrowCount;
+            this.borrowTimeouts = borrowTimeouts;
+            this.createdCount = createdCount;
+            this.closedCount = closedCount;
+            this.validationFailures = validationFailures;
+            this.avgWaitMicros = avgWaitMicros;
+            this.maxWaitMicros = maxWaitMicros;
+        }
+
+        public String getPoolName() { return poolName; }
+        public int getTotalConnections() { return totalConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getActiveConnections() { return activeConnections; }
+        public int getWaitingThreads() { return waitingThreads; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getBorrowTimeouts() { return borrowTimeouts; }
+        public long getCreatedCount() { return createdCount; }
+        public long getClosedCount() { return closedCount; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getAvgWaitMicros() { return avgWaitMicros; }
+        public long getMaxWaitMicros() { return maxWaitMicros; }
+
+        @Override
+        public String toString() {
+            return "Pool{" + poolName +
+                    ", total=" + totalConnections +
+                    ", idle=" + idleConnections +
+                    ", active=" + activeConnections +
+                    ", waiting=" + waitingThreads +
+                    ", borrows=" + borrowCount +
+                    ", timeouts=" + borrowTimeouts +
+                    ", created=" + createdCount +
+                    ", closed=" + closedCount +
+                    ", validationFailures=" + validationFailures +
+                    ", avgWaitUs=" + avgWaitMicros +
+                    ", maxWaitUs=" + maxWaitMicros +
+                    '}';
+        }
+    }
+}
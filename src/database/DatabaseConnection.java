@@ -2,37 +2,67 @@ package database;
 
 import config.DatabaseConfig;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import utils.Logger;
 
 /**
  * Database Connection Class
- * Handles MySQL database connection using Singleton pattern
+ * Owns the MySQL connection pools using Singleton pattern.
+ * DAOs borrow a connection per operation and close it to return it to the pool.
+ * Writes always go to the primary; heavy reads can be routed to an optional read replica.
  */
 public class DatabaseConnection {
-    private static DatabaseConnection instance;
-    private Connection connection;
+    private static volatile DatabaseConnection instance;
+    private final ConnectionPool pool;
+    private final ConnectionPool readPool; // null when no replica is configured
+
+    // nesting depth of pinToPrimary() blocks on the current thread
+    private static final ThreadLocal<int[]> PRIMARY_PINS = ThreadLocal.withInitial(() -> new int[1]);
 
     // Private constructor for Singleton pattern
     private DatabaseConnection() {
         try {
             Class.forName(DatabaseConfig.JDBC_DRIVER);
-            this.connection = DriverManager.getConnection(
-                DatabaseConfig.DB_URL_WITH_DB,
-                DatabaseConfig.DB_USER,
-                DatabaseConfig.DB_PASSWORD
-            );
-            System.out.println("Database connected successfully!");
         } catch (ClassNotFoundException e) {
             System.err.println("MySQL JDBC Driver not found!");
             Logger.error("JDBC driver not found", e);
-        } catch (SQLException e) {
-            System.err.println("Connection failed!");
-            Logger.error("Database connection failed", e);
+        }
+        this.pool = createPool("primary", DatabaseConfig.DB_URL_WITH_DB, false);
+        System.out.println("Database connection pool started!");
+
+        if (DatabaseConfig.DB_READ_HOST.isEmpty()) {
+            this.readPool = null;
+        } else {
+            this.readPool = createPool("replica", DatabaseConfig.DB_READ_URL_WITH_DB, true);
+            System.out.println("Read replica pool started (" + DatabaseConfig.DB_READ_HOST + ":" + DatabaseConfig.DB_READ_PORT + ")");
         }
     }
 
+    private static ConnectionPool createPool(String name, String url, boolean readOnly) {
+        return new ConnectionPool(
+            name,
+            url + DatabaseConfig.POOL_URL_OPTIONS,
+            DatabaseConfig.DB_USER,
+            DatabaseConfig.DB_PASSWORD,
+            DatabaseConfig.POOL_MIN_SIZE,
+            DatabaseConfig.POOL_MAX_SIZE,
+            DatabaseConfig.POOL_BORROW_TIMEOUT_MS,
+            DatabaseConfig.POOL_IDLE_TIMEOUT_MS,
+            DatabaseConfig.POOL_MAX_LIFETIME_MS,
+            DatabaseConfig.POOL_VALIDATION_TIMEOUT_SEC,
+            DatabaseConfig.POOL_VALIDATION_INTERVAL_MS,
+            DatabaseConfig.POOL_HOUSEKEEPING_INTERVAL_MS,
+            DatabaseConfig.STATEMENT_CACHE_SIZE,
+            readOnly,
+            DatabaseConfig.POOL_CONNECT_RETRIES,
+            DatabaseConfig.POOL_CONNECT_BACKOFF_MS,
+            new CircuitBreaker(name, DatabaseConfig.BREAKER_FAILURE_THRESHOLD,
+                DatabaseConfig.BREAKER_OPEN_MS, DatabaseConfig.BREAKER_MAX_OPEN_MS)
+        );
+    }
+
     /**
      * Get singleton instance of DatabaseConnection
      * @return DatabaseConnection instance
@@ -49,35 +79,125 @@ public class DatabaseConnection {
     }
 
     /**
-     * Get the database connection
+     * Borrow a connection to the primary database.
+     * Always close it (try-with-resources) so it goes back to the pool.
+     * Inside {@link Transaction#run} this is the transaction's connection, and closing it does nothing.
      * @return Connection object
      */
-    public Connection getConnection() {
+    public Connection getConnection() throws SQLException {
+        Transaction tx = Transaction.current();
+        if (tx != null) return tx.getConnection();
+        return pool.borrow();
+    }
+
+    /**
+     * Prepare a forward-only statement whose result set is streamed from the server row by row
+     * instead of being read into memory; the connection is busy until it is closed.
+     * The three-argument prepareStatement is not served by the pool's statement cache, so the
+     * streaming fetch size never stays on a cached statement.
+     */
+    public static PreparedStatement prepareStreaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
         try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(
-                    DatabaseConfig.DB_URL_WITH_DB,
-                    DatabaseConfig.DB_USER,
-                    DatabaseConfig.DB_PASSWORD
-                );
-            }
+            pstmt.setFetchSize(Integer.MIN_VALUE);
         } catch (SQLException e) {
-            Logger.error("Failed to re-establish database connection", e);
+            pstmt.close();
+            throw e;
         }
-        return connection;
+        return pstmt;
     }
 
     /**
-     * Close the database connection
+     * Borrow a read-only connection for queries that tolerate replica lag (reports, dashboards, listings).
+     * Inside {@link Transaction#run} this is the transaction's connection.
+     * Falls back to the primary when no replica is configured, the replica is unavailable,
+     * the current thread is pinned with {@link #pinToPrimary()}, or data was written within
+     * the last {@link DatabaseConfig#READ_AFTER_WRITE_PIN_MS} milliseconds.
+     * @return Connection object
      */
-    public void closeConnection() {
+    public Connection getReadConnection() throws SQLException {
+        Transaction tx = Transaction.current();
+        if (tx != null) return tx.getConnection();
+        if (readPool == null || PRIMARY_PINS.get()[0] > 0
+                || System.currentTimeMillis() - pool.getLastWriteAt() < DatabaseConfig.READ_AFTER_WRITE_PIN_MS) {
+            return pool.borrow();
+        }
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Database connection closed.");
-            }
+            return readPool.borrow();
         } catch (SQLException e) {
-            Logger.error("Error closing database connection", e);
+            Logger.warn("Read replica unavailable, reading from primary: " + e.getMessage());
+            return pool.borrow();
+        }
+    }
+
+    /**
+     * Send every read on the current thread to the primary until the returned pin is closed.
+     * Use for read-after-write paths that must see their own changes:
+     * <pre>try (DatabaseConnection.PrimaryPin pin = DatabaseConnection.getInstance().pinToPrimary()) { ... }</pre>
+     */
+    public PrimaryPin pinToPrimary() {
+        PRIMARY_PINS.get()[0]++;
+        return new PrimaryPin();
+    }
+
+    /**
+     * Be told when a database becomes unreachable (breaker OPEN), is probed (HALF_OPEN)
+     * or is reachable again (CLOSED). Listeners run on a background or DAO thread.
+     */
+    public void addConnectionStateListener(CircuitBreaker.Listener listener) {
+        pool.getBreaker().addListener(listener);
+        if (readPool != null) readPool.getBreaker().addListener(listener);
+    }
+
+    public void removeConnectionStateListener(CircuitBreaker.Listener listener) {
+        pool.getBreaker().removeListener(listener);
+        if (readPool != null) readPool.getBreaker().removeListener(listener);
+    }
+
+    /**
+     * Get a snapshot of the pool metrics
+     */
+    public ConnectionPool.Stats getPoolStats() {
+        return pool.getStats();
+    }
+
+    /**
+     * Get a snapshot of the read replica pool metrics, or null if no replica is configured
+     */
+    public ConnectionPool.Stats getReadPoolStats() {
+        return readPool == null ? null : readPool.getStats();
+    }
+
+    /**
+     * Get a snapshot of the prepared statement cache counters
+     */
+    public StatementCache.Stats getStatementCacheStats() {
+        return StatementCache.getStats();
+    }
+
+    /**
+     * Close the connection pools
+     */
+    public void closeConnection() {
+        pool.shutdown();
+        if (readPool != null) readPool.shutdown();
+        System.out.println("Database connection pool closed.");
+    }
+
+    /**
+     * Handle returned by pinToPrimary(); closing it removes the pin
+     */
+    public static final class PrimaryPin implements AutoCloseable {
+        private boolean closed;
+
+        private PrimaryPin() {
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            PRIMARY_PINS.get()[0]--;
         }
     }
 }
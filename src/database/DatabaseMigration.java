@@ -4,195 +4,250 @@ import config.DatabaseConfig;
 import utils.PasswordUtils;
 import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.Statement;
-import java.sql.SQLException;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import utils.Logger;
 
 /**
  * Database Migration Class
- * Creates database and tables if they don't exist
- * Run this file first to set up the database structure
+ * Brings the schema up to date with numbered, checksummed migrations recorded in the
+ * schema_version table. When nothing is pending, startup costs one connection and one
+ * SELECT on schema_version (plus a partition check when sales partitioning is on). Add new changes to the end of MIGRATIONS; never edit or
+ * renumber one that has shipped.
  */
 public class DatabaseMigration {
+    private static final int ER_BAD_DB_ERROR = 1049;     // Unknown database
+    private static final int ER_NO_SUCH_TABLE = 1146;
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        Migration.sql(1, "Create users table",
+            "CREATE TABLE IF NOT EXISTS users (" +
+            "user_id INT PRIMARY KEY AUTO_INCREMENT," +
+            "username VARCHAR(50) UNIQUE NOT NULL," +
+            "password VARCHAR(255) NOT NULL," +
+            "full_name VARCHAR(100) NOT NULL," +
+            "role ENUM('Admin', 'Staff') NOT NULL," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")"),
+        Migration.sql(2, "Create products table",
+            "CREATE TABLE IF NOT EXISTS products (" +
+            "product_id INT PRIMARY KEY AUTO_INCREMENT," +
+            "product_name VARCHAR(100) NOT NULL," +
+            "buying_price DECIMAL(10, 2) NOT NULL," +
+            "selling_price DECIMAL(10, 2) NOT NULL," +
+            "stock_quantity INT NOT NULL DEFAULT 0," +
+            "threshold_value INT NOT NULL DEFAULT 10," +
+            "expiry_date DATE," +
+            "image_path VARCHAR(255)," +
+            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP" +
+            ")"),
+        Migration.sql(3, "Create sales table",
+            "CREATE TABLE IF NOT EXISTS sales (" +
+            "sale_id INT PRIMARY KEY AUTO_INCREMENT," +
+            "product_id INT NOT NULL," +
+            "product_name VARCHAR(100) NOT NULL," +
+            "quantity INT NOT NULL," +
+            "unit_price DECIMAL(10, 2) NOT NULL," +
+            "total_price DECIMAL(10, 2) NOT NULL," +
+            "sale_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "user_id INT," +
+            "FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE," +
+            "FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE SET NULL" +
+            ")"),
+        Migration.sql(4, "Create requests table",
+            "CREATE TABLE IF NOT EXISTS requests (" +
+            "request_id INT PRIMARY KEY AUTO_INCREMENT," +
+            "product_id INT NOT NULL," +
+            "product_name VARCHAR(100) NOT NULL," +
+            "requested_quantity INT NOT NULL," +
+            // store the requesting user's id (foreign key) and a display name
+            "requested_by_user_id INT NULL," +
+            "requested_by_name VARCHAR(100) NULL," +
+            "status ENUM('Pending', 'Approved', 'Rejected') DEFAULT 'Pending'," +
+            "request_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+            "FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE," +
+            "FOREIGN KEY (requested_by_user_id) REFERENCES users(user_id) ON DELETE SET NULL" +
+            ")"),
+        Migration.code(5, "Insert default admin and staff users", DatabaseMigration::insertDefaultUsers),
+        // secondary indexes; built online so a large existing table stays writable meanwhile
+        Migration.sql(6, "Index sales by sale_date",
+            "ALTER TABLE sales ADD INDEX idx_sales_sale_date (sale_date), ALGORITHM=INPLACE, LOCK=NONE"),
+        // also serves the product_id foreign key, so InnoDB drops its implicit single-column index
+        Migration.sql(7, "Index sales by product_id, sale_date",
+            "ALTER TABLE sales ADD INDEX idx_sales_product_date (product_id, sale_date), ALGORITHM=INPLACE, LOCK=NONE"),
+        Migration.sql(8, "Index requests by status, request_date",
+            "ALTER TABLE requests ADD INDEX idx_requests_status_date (status, request_date), ALGORITHM=INPLACE, LOCK=NONE"),
+        // serves getOutOfStockCount (stock_quantity = 0) from the index alone; it cannot range-scan
+        // the low-stock check (stock_quantity <= threshold_value compares two columns of the same row)
+        // and is not covering for the SELECT * listings
+        Migration.sql(9, "Index products by stock_quantity, threshold_value",
+            "ALTER TABLE products ADD INDEX idx_products_stock_threshold (stock_quantity, threshold_value), ALGORITHM=INPLACE, LOCK=NONE"),
+        // opt-in: drops the sales foreign keys, see SalesPartitionManager
+        Migration.code(10, "Partition sales by month on sale_date", SalesPartitionManager::partitionSalesTable)
+            .onlyIf(() -> DatabaseConfig.SALES_PARTITIONING_ENABLED),
+        // kept current by SaleDAO; rebuild any time with dao.SalesRollupDAO.main
+        Migration.sql(11, "Create and backfill sales_daily_rollup",
+            "CREATE TABLE IF NOT EXISTS sales_daily_rollup (" +
+            "sale_day DATE NOT NULL," +
+            "product_id INT NOT NULL," +
+            "product_name VARCHAR(100) NOT NULL," +
+            "quantity INT NOT NULL DEFAULT 0," +
+            "revenue DECIMAL(14, 2) NOT NULL DEFAULT 0," +
+            "sale_count INT NOT NULL DEFAULT 0," +
+            "PRIMARY KEY (sale_day, product_id)," +
+            "INDEX idx_rollup_product_day (product_id, sale_day)" +
+            ")",
+            "DELETE FROM sales_daily_rollup",
+            "INSERT INTO sales_daily_rollup (sale_day, product_id, product_name, quantity, revenue, sale_count) " +
+            "SELECT DATE(sale_date), product_id, MAX(product_name), SUM(quantity), SUM(total_price), COUNT(*) " +
+            "FROM sales GROUP BY DATE(sale_date), product_id"),
+        // used by ProductDAO.searchProducts; the first FULLTEXT index rebuilds the table, so writes wait meanwhile
+        Migration.sql(12, "Full-text index on products.product_name",
+            "ALTER TABLE products ADD FULLTEXT INDEX ft_products_name (product_name), ALGORITHM=INPLACE, LOCK=SHARED"),
+        // newest-first keyset paging of all requests (RequestDAO.getRequestsPage); request_id comes along as the primary key
+        Migration.sql(13, "Index requests by request_date",
+            "ALTER TABLE requests ADD INDEX idx_requests_request_date (request_date), ALGORITHM=INPLACE, LOCK=NONE"),
+        // optimistic concurrency for product edits, see ProductDAO.updateProductDetails
+        Migration.sql(14, "Add products.version",
+            "ALTER TABLE products ADD COLUMN version INT NOT NULL DEFAULT 0, ALGORITHM=INSTANT"),
+        // expiring-soon window loaded by services.ExpiryScheduler (ProductDAO.getProductsExpiringBefore)
+        Migration.sql(15, "Index products by expiry_date",
+            "ALTER TABLE products ADD INDEX idx_products_expiry_date (expiry_date), ALGORITHM=INPLACE, LOCK=NONE")
+    );
 
     /**
-     * Create the database if it doesn't exist
+     * Insert default admin and staff users (with hashed passwords) if they are missing
      */
-    private static void createDatabase() {
-        try {
-            Connection conn = DriverManager.getConnection(
-                DatabaseConfig.DB_URL,
-                DatabaseConfig.DB_USER,
-                DatabaseConfig.DB_PASSWORD
-            );
-            Statement stmt = conn.createStatement();
-
-            String sql = "CREATE DATABASE IF NOT EXISTS " + DatabaseConfig.DB_NAME;
-            stmt.executeUpdate(sql);
-            System.out.println("Database created successfully or already exists.");
+    private static void insertDefaultUsers(Connection conn) throws SQLException {
+        insertUserIfMissing(conn, "admin", "admin123", "System Administrator", "Admin");
+        insertUserIfMissing(conn, "staff", "staff123", "Kael V.", "Staff");
+    }
 
-            stmt.close();
-            conn.close();
-        } catch (SQLException e) {
-            System.err.println("Error creating database!");
-            Logger.error("Error creating database", e);
+    private static void insertUserIfMissing(Connection conn, String username, String password,
+                                            String fullName, String role) throws SQLException {
+        String checkSql = "SELECT COUNT(*) FROM users WHERE username = ?";
+        try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
+            checkStmt.setString(1, username);
+            try (ResultSet rs = checkStmt.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0) return;
+            }
+        }
+        String insert = "INSERT INTO users (username, password, full_name, role) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(insert)) {
+            pstmt.setString(1, username);
+            pstmt.setString(2, PasswordUtils.hashPassword(password));
+            pstmt.setString(3, fullName);
+            pstmt.setString(4, role);
+            pstmt.executeUpdate();
+            System.out.println("Inserted default " + role.toLowerCase() + " (username: " + username + " / password: " + password + ")");
         }
     }
 
     /**
-     * Create all necessary tables
+     * Connect to the application database, creating it first if it does not exist
      */
-    private static void createTables() {
+    private static Connection connect() throws SQLException {
         try {
-            Connection conn = DriverManager.getConnection(
-                DatabaseConfig.DB_URL_WITH_DB,
-                DatabaseConfig.DB_USER,
-                DatabaseConfig.DB_PASSWORD
-            );
-            Statement stmt = conn.createStatement();
-
-            // Create Users table
-            String usersTable = "CREATE TABLE IF NOT EXISTS users (" +
-                "user_id INT PRIMARY KEY AUTO_INCREMENT," +
-                "username VARCHAR(50) UNIQUE NOT NULL," +
-                "password VARCHAR(255) NOT NULL," +
-                "full_name VARCHAR(100) NOT NULL," +
-                "role ENUM('Admin', 'Staff') NOT NULL," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                ")";
-            stmt.executeUpdate(usersTable);
-            System.out.println("Users table created successfully.");
-
-            // Create Products table
-            String productsTable = "CREATE TABLE IF NOT EXISTS products (" +
-                "product_id INT PRIMARY KEY AUTO_INCREMENT," +
-                "product_name VARCHAR(100) NOT NULL," +
-                "buying_price DECIMAL(10, 2) NOT NULL," +
-                "selling_price DECIMAL(10, 2) NOT NULL," +
-                "stock_quantity INT NOT NULL DEFAULT 0," +
-                "threshold_value INT NOT NULL DEFAULT 10," +
-                "expiry_date DATE," +
-                "image_path VARCHAR(255)," +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP" +
-                ")";
-            stmt.executeUpdate(productsTable);
-            System.out.println("Products table created successfully.");
-
-            // Create Sales table
-            String salesTable = "CREATE TABLE IF NOT EXISTS sales (" +
-                "sale_id INT PRIMARY KEY AUTO_INCREMENT," +
-                "product_id INT NOT NULL," +
-                "product_name VARCHAR(100) NOT NULL," +
-                "quantity INT NOT NULL," +
-                "unit_price DECIMAL(10, 2) NOT NULL," +
-                "total_price DECIMAL(10, 2) NOT NULL," +
-                "sale_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "user_id INT," +
-                "FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE," +
-                "FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE SET NULL" +
-                ")";
-            stmt.executeUpdate(salesTable);
-            System.out.println("Sales table created successfully.");
-
-            // Create Requests table
-            String requestsTable = "CREATE TABLE IF NOT EXISTS requests (" +
-                "request_id INT PRIMARY KEY AUTO_INCREMENT," +
-                "product_id INT NOT NULL," +
-                "product_name VARCHAR(100) NOT NULL," +
-                "requested_quantity INT NOT NULL," +
-                // store the requesting user's id (foreign key) and a display name
-                "requested_by_user_id INT NULL," +
-                "requested_by_name VARCHAR(100) NULL," +
-                "status ENUM('Pending', 'Approved', 'Rejected') DEFAULT 'Pending'," +
-                "request_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE," +
-                "FOREIGN KEY (requested_by_user_id) REFERENCES users(user_id) ON DELETE SET NULL" +
-                ")";
-            stmt.executeUpdate(requestsTable);
-            System.out.println("Requests table created successfully.");
-
-            stmt.close();
-            conn.close();
+            return DriverManager.getConnection(DatabaseConfig.DB_URL_WITH_DB, DatabaseConfig.DB_USER, DatabaseConfig.DB_PASSWORD);
         } catch (SQLException e) {
-            System.err.println("Error creating tables!");
-            Logger.error("Error creating tables", e);
+            if (e.getErrorCode() != ER_BAD_DB_ERROR) throw e;
+        }
+        Connection conn = DriverManager.getConnection(DatabaseConfig.DB_URL, DatabaseConfig.DB_USER, DatabaseConfig.DB_PASSWORD);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + DatabaseConfig.DB_NAME);
+            conn.setCatalog(DatabaseConfig.DB_NAME);
+            System.out.println("Database " + DatabaseConfig.DB_NAME + " created.");
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
         }
+        return conn;
     }
 
     /**
-     * Insert default admin user (with hashed passwords)
+     * Read applied versions and their checksums; creates schema_version on first run
      */
-    private static void insertDefaultData() {
-        try {
-            Connection conn = DriverManager.getConnection(
-                DatabaseConfig.DB_URL_WITH_DB,
-                DatabaseConfig.DB_USER,
-                DatabaseConfig.DB_PASSWORD
-            );
-
-            // Check if admin exists
-            String checkSql = "SELECT COUNT(*) FROM users WHERE username = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                // Admin
-                checkStmt.setString(1, "admin");
-                var rs = checkStmt.executeQuery();
-                boolean adminExists = false;
-                if (rs.next()) adminExists = rs.getInt(1) > 0;
-
-                // Staff
-                checkStmt.setString(1, "staff");
-                var rs2 = checkStmt.executeQuery();
-                boolean staffExists = false;
-                if (rs2.next()) staffExists = rs2.getInt(1) > 0;
-
-                if (!adminExists) {
-                    String insert = "INSERT INTO users (username, password, full_name, role) VALUES (?, ?, ?, ?)";
-                    try (PreparedStatement pstmt = conn.prepareStatement(insert)) {
-                        pstmt.setString(1, "admin");
-                        pstmt.setString(2, PasswordUtils.hashPassword("admin123"));
-                        pstmt.setString(3, "System Administrator");
-                        pstmt.setString(4, "Admin");
-                        pstmt.executeUpdate();
-                        System.out.println("Inserted default admin (username: admin / password: admin123)");
-                    }
-                }
-
-                if (!staffExists) {
-                    String insert = "INSERT INTO users (username, password, full_name, role) VALUES (?, ?, ?, ?)";
-                    try (PreparedStatement pstmt = conn.prepareStatement(insert)) {
-                        pstmt.setString(1, "staff");
-                        pstmt.setString(2, PasswordUtils.hashPassword("staff123"));
-                        pstmt.setString(3, "Kael V.");
-                        pstmt.setString(4, "Staff");
-                        pstmt.executeUpdate();
-                        System.out.println("Inserted default staff (username: staff / password: staff123)");
-                    }
-                }
+    private static Map<Integer, String> readAppliedVersions(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) applied.put(rs.getInt(1), rs.getString(2));
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ER_NO_SUCH_TABLE) throw e;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY," +
+                    "description VARCHAR(200) NOT NULL," +
+                    "checksum CHAR(64) NOT NULL," +
+                    "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                    "execution_ms INT NOT NULL" +
+                    ")");
             }
+        }
+        return applied;
+    }
 
-            conn.close();
-        } catch (SQLException e) {
-            System.err.println("Error inserting default data!");
-            Logger.error("Error inserting default data", e);
+    private static void recordApplied(Connection conn, Migration m, long elapsedMs) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, m.getVersion());
+            pstmt.setString(2, m.getDescription());
+            pstmt.setString(3, m.getChecksum());
+            pstmt.setLong(4, elapsedMs);
+            pstmt.executeUpdate();
         }
     }
 
     /**
-     * Run all migrations
+     * Run all pending migrations
      */
     public static void runMigrations() {
-        System.out.println("=== Starting Database Migration ===");
         try {
             Class.forName(DatabaseConfig.JDBC_DRIVER);
-            createDatabase();
-            createTables();
-            insertDefaultData();
-            System.out.println("=== Database Migration Completed Successfully ===");
         } catch (ClassNotFoundException e) {
             System.err.println("MySQL JDBC Driver not found!");
             Logger.error("JDBC driver not found during migration", e);
+            return;
+        }
+
+        try (Connection conn = connect()) {
+            Map<Integer, String> applied = readAppliedVersions(conn);
+            int pending = 0;
+            for (Migration m : MIGRATIONS) {
+                String checksum = applied.get(m.getVersion());
+                if (checksum == null) {
+                    if (m.isEnabled()) pending++;
+                } else if (!checksum.equals(m.getChecksum())) {
+                    Logger.warn("Migration " + m + " was changed after it was applied (checksum mismatch)");
+                }
+            }
+            if (pending == 0) {
+                System.out.println("Database schema is up to date.");
+            } else {
+                System.out.println("=== Starting Database Migration (" + pending + " pending) ===");
+                for (Migration m : MIGRATIONS) {
+                    if (applied.containsKey(m.getVersion()) || !m.isEnabled()) continue;
+                    long start = System.currentTimeMillis();
+                    // MySQL commits DDL implicitly, so a failed migration stops here and is retried next start
+                    m.apply(conn);
+                    long elapsed = System.currentTimeMillis() - start;
+                    recordApplied(conn, m, elapsed);
+                    System.out.println("Applied migration " + m + " (" + elapsed + " ms)");
+                }
+                System.out.println("=== Database Migration Completed Successfully ===");
+            }
+            if (DatabaseConfig.SALES_PARTITIONING_ENABLED) {
+                SalesPartitionManager.ensureFuturePartitions(conn);
+            }
+        } catch (SQLException e) {
+            System.err.println("Database migration failed!");
+            Logger.error("Database migration failed", e);
         }
     }
 
@@ -0,0 +1,79 @@
+package database;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency Histogram
+ * Lock-free log-linear histogram in the style of HdrHistogram: every power of two is split
+ * into 32 linear sub-buckets, so any recorded value is reported within about 3% of its
+ * true value while the whole histogram stays a fixed ~15 KB array.
+ * Values are recorded in microseconds.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // enough buckets for any positive long
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record one observation
+     */
+    public void record(long micros) {
+        if (micros < 0) micros = 0;
+        counts.incrementAndGet(bucketIndex(micros));
+        totalCount.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public double getMeanMicros() {
+        long count = totalCount.sum();
+        return count == 0 ? 0.0 : (double) totalMicros.sum() / count;
+    }
+
+    /**
+     * Value at the given percentile (0-100), reported as the upper bound of its bucket
+     */
+    public long getPercentileMicros(double percentile) {
+        long count = totalCount.sum();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(bucketUpperBound(i), maxMicros.get());
+        }
+        return maxMicros.get();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift); // in [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT)
+        return (shift + 1) * SUB_BUCKET_COUNT + (subBucket - SUB_BUCKET_COUNT);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        if (shift >= 63 - SUB_BUCKET_BITS - 1) return Long.MAX_VALUE;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
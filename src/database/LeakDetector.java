@@ -0,0 +1,233 @@
+package database;
+
+import config.DatabaseConfig;
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import utils.Logger;
+
+/**
+ * Leak Detector
+ * Optional diagnostic mode (LEAK_DETECTION_ENABLED) that follows every borrowed connection,
+ * statement and result set handed out by the pool. Each one remembers the stack trace where it
+ * was opened; anything still open after LEAK_DETECTION_THRESHOLD_MS, or garbage collected
+ * without being closed, is reported to the log with that stack trace.
+ * getOpenCounts() gives the number of open handles per DAO method, so cursor and memory
+ * growth can be watched over a long session.
+ */
+public class LeakDetector {
+    public enum Kind { CONNECTION, STATEMENT, RESULT_SET }
+
+    private static final Cleaner CLEANER = DatabaseConfig.LEAK_DETECTION_ENABLED ? Cleaner.create() : null;
+    private static final Map<Long, Handle> OPEN = new ConcurrentHashMap<>();
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private static final LongAdder OPENED = new LongAdder();
+    private static final LongAdder OVERDUE = new LongAdder();
+    private static final LongAdder COLLECTED_UNCLOSED = new LongAdder();
+    private static final LongAdder CLOSED_BY_POOL = new LongAdder();
+
+    static {
+        if (DatabaseConfig.LEAK_DETECTION_ENABLED) {
+            ScheduledExecutorService scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "db-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = Math.max(1_000, DatabaseConfig.LEAK_DETECTION_THRESHOLD_MS / 2);
+            scanner.scheduleWithFixedDelay(LeakDetector::scan, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private LeakDetector() {
+    }
+
+    public static boolean isEnabled() {
+        return DatabaseConfig.LEAK_DETECTION_ENABLED;
+    }
+
+    /**
+     * Start following a JDBC object; returns null when leak detection is off
+     */
+    static Handle track(Kind kind, Object jdbcObject) {
+        if (!isEnabled()) return null;
+        Handle h = new Handle(NEXT_ID.incrementAndGet(), kind, QueryMetrics.currentDaoMethod(),
+            Thread.currentThread().getName(), new Throwable("Opened here"));
+        OPEN.put(h.id, h);
+        OPENED.increment();
+        // the cleaning action holds only the handle, never the object, or it could not be collected
+        h.cleanable = CLEANER.register(jdbcObject, h::collected);
+        return h;
+    }
+
+    /**
+     * Open handles grouped by the DAO method that opened them ("-" when opened outside a DAO)
+     */
+    public static List<OpenCount> getOpenCounts() {
+        Map<String, int[]> byDao = new TreeMap<>();
+        for (Handle h : OPEN.values()) {
+            byDao.computeIfAbsent(h.daoMethod == null ? "-" : h.daoMethod, k -> new int[3])[h.kind.ordinal()]++;
+        }
+        List<OpenCount> list = new ArrayList<>();
+        for (Map.Entry<String, int[]> e : byDao.entrySet()) {
+            int[] c = e.getValue();
+            list.add(new OpenCount(e.getKey(), c[0], c[1], c[2]));
+        }
+        return list;
+    }
+
+    /**
+     * Totals since startup
+     */
+    public static Stats getStats() {
+        return new Stats(OPENED.sum(), OPEN.size(), OVERDUE.sum(), COLLECTED_UNCLOSED.sum(), CLOSED_BY_POOL.sum());
+    }
+
+    /**
+     * Write the current open-handle counts to the log
+     */
+    public static void logOpenCounts() {
+        Logger.info("JDBC leak detector: " + getStats());
+        for (OpenCount c : getOpenCounts()) Logger.info("  " + c);
+    }
+
+    private static void scan() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Handle h : OPEN.values()) {
+                if (!h.overdueReported && now - h.openedAt >= DatabaseConfig.LEAK_DETECTION_THRESHOLD_MS) {
+                    h.overdueReported = true;
+                    OVERDUE.increment();
+                    Logger.error("Possible JDBC leak: " + h.describe() + " still open after "
+                        + (now - h.openedAt) + " ms", h.allocation);
+                }
+            }
+        } catch (RuntimeException e) {
+            Logger.error("Leak detector scan failed", e);
+        }
+    }
+
+    /**
+     * Tracking state for one JDBC object
+     */
+    static final class Handle {
+        private final long id;
+        private final Kind kind;
+        private final String daoMethod;
+        private final String thread;
+        private final long openedAt = System.currentTimeMillis();
+        private final Throwable allocation;
+        private Cleaner.Cleanable cleanable;
+        private volatile boolean closed;
+        private volatile boolean overdueReported;
+
+        private Handle(long id, Kind kind, String daoMethod, String thread, Throwable allocation) {
+            this.id = id;
+            this.kind = kind;
+            this.daoMethod = daoMethod;
+            this.thread = thread;
+            this.allocation = allocation;
+        }
+
+        /**
+         * The caller closed the object
+         */
+        void close() {
+            if (closed) return;
+            closed = true;
+            OPEN.remove(id);
+            cleanable.clean(); // deregisters; collected() sees closed and does nothing
+        }
+
+        /**
+         * The pool closed the object because its owner was closed without closing it first
+         */
+        void closedByPool() {
+            if (closed) return;
+            CLOSED_BY_POOL.increment();
+            if (DatabaseConfig.LEAK_DETECTION_LOG_POOL_CLOSES) {
+                Logger.warn("JDBC " + describe() + " was not closed; released with its connection");
+            }
+            close();
+        }
+
+        private void collected() {
+            if (closed) return;
+            closed = true;
+            OPEN.remove(id);
+            COLLECTED_UNCLOSED.increment();
+            Logger.error("JDBC leak: " + describe() + " was garbage collected without close()", allocation);
+        }
+
+        private String describe() {
+            return kind + " #" + id + " opened by " + (daoMethod == null ? "?" : daoMethod) + " on thread " + thread;
+        }
+    }
+
+    /**
+     * Open handles for one DAO method
+     */
+    public static final class OpenCount {
+        private final String daoMethod;
+        private final int connections;
+        private final int statements;
+        private final int resultSets;
+
+        OpenCount(String daoMethod, int connections, int statements, int resultSets) {
+            this.daoMethod = daoMethod;
+            this.connections = connections;
+            this.statements = statements;
+            this.resultSets = resultSets;
+        }
+
+        public String getDaoMethod() { return daoMethod; }
+        public int getConnections() { return connections; }
+        public int getStatements() { return statements; }
+        public int getResultSets() { return resultSets; }
+
+        @Override
+        public String toString() {
+            return daoMethod + "{connections=" + connections + ", statements=" + statements +
+                    ", resultSets=" + resultSets + "}";
+        }
+    }
+
+    /**
+     * Leak detector totals
+     */
+    public static final class Stats {
+        private final long opened;
+        private final int open;
+        private final long overdue;
+        private final long collectedUnclosed;
+        private final long closedByPool;
+
+        Stats(long opened, int open, long overdue, long collectedUnclosed, long closedByPool) {
+            this.opened = opened;
+            this.open = open;
+            this.overdue = overdue;
+            this.collectedUnclosed = collectedUnclosed;
+            this.closedByPool = closedByPool;
+        }
+
+        public long getOpened() { return opened; }
+        public int getOpen() { return open; }
+        public long getOverdue() { return overdue; }
+        public long getCollectedUnclosed() { return collectedUnclosed; }
+        public long getClosedByPool() { return closedByPool; }
+
+        @Override
+        public String toString() {
+            return "LeakStats{opened=" + opened + ", open=" + open + ", overdue=" + overdue +
+                    ", collectedUnclosed=" + collectedUnclosed + ", closedByPool=" + closedByPool + "}";
+        }
+    }
+}
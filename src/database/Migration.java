@@ -0,0 +1,114 @@
+package database;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import utils.Logger;
+
+/**
+ * Migration Class
+ * One numbered schema change applied by DatabaseMigration and recorded in schema_version.
+ * A migration is either a list of SQL statements or a code step; its checksum is the
+ * SHA-256 of its description and SQL, so an edited migration that was already applied
+ * is reported instead of silently diverging from the database.
+ *
+ * An ALTER that adds an index or column which is already there (the previous run died after the
+ * DDL committed but before schema_version was written, or someone added it by hand) counts as
+ * applied, so such statements should add one index or column each.
+ */
+public final class Migration {
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+
+    /**
+     * A migration written in Java, for changes that need more than fixed SQL
+     */
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+    private final Step step;
+    private final BooleanSupplier enabled;
+    private final String checksum;
+
+    private Migration(int version, String description, List<String> statements, Step step, BooleanSupplier enabled) {
+        this.version = version;
+        this.description = description;
+        this.statements = statements;
+        this.step = step;
+        this.enabled = enabled;
+        this.checksum = sha256(description + "\n" + String.join(";\n", statements));
+    }
+
+    /**
+     * Migration made of SQL statements, run in order
+     */
+    public static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description, List.of(statements), null, () -> true);
+    }
+
+    /**
+     * Migration implemented in code; change the description when the code changes meaningfully
+     */
+    public static Migration code(int version, String description, Step step) {
+        return new Migration(version, description, List.of(), step, () -> true);
+    }
+
+    /**
+     * Copy of this migration that only runs while the condition is true (opt-in features).
+     * A skipped migration is not recorded, so it runs on the first start after being enabled.
+     */
+    public Migration onlyIf(BooleanSupplier condition) {
+        return new Migration(version, description, statements, step, condition);
+    }
+
+    public int getVersion() { return version; }
+    public String getDescription() { return description; }
+    public String getChecksum() { return checksum; }
+
+    public boolean isEnabled() {
+        return enabled.getAsBoolean();
+    }
+
+    void apply(Connection conn) throws SQLException {
+        if (step != null) {
+            step.apply(conn);
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() != ER_DUP_KEYNAME && e.getErrorCode() != ER_DUP_FIELDNAME) throw e;
+                    Logger.warn(this + ": " + e.getMessage() + "; already applied, continuing");
+                }
+            }
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(64);
+            for (byte b : hash) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "V" + version + " " + description;
+    }
+}
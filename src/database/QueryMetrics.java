@@ -0,0 +1,209 @@
+package database;
+
+import config.DatabaseConfig;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Query Metrics
+ * In-process counters for every DAO method and every SQL statement: calls, errors,
+ * rows returned or affected, and latency percentiles. Statements executed through a
+ * pooled connection are recorded automatically; read the numbers with snapshot()
+ * or write them to a file with dumpTo().
+ * Statements that differ only in the length of a placeholder list ("IN (?, ?, ?)", or the
+ * tuples of a multi-row VALUES) share one key, and at most QUERY_METRICS_MAX_KEYS keys are
+ * kept; anything recorded after that is counted under OTHER_KEY.
+ */
+public class QueryMetrics {
+    public static final String METHOD_PREFIX = "method:";
+    public static final String SQL_PREFIX = "sql:";
+    public static final String OTHER_KEY = "(other)";
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    // a tuple may contain calls such as NOW() but no deeper nesting
+    private static final Pattern REPEATED_TUPLES = Pattern.compile("(\\((?:[^()]|\\([^()]*\\))*\\))(?:\\s*,\\s*\\1)+");
+
+    private static final Map<String, Metric> METRICS = new ConcurrentHashMap<>();
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private QueryMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return DatabaseConfig.QUERY_METRICS_ENABLED;
+    }
+
+    /**
+     * Record one execution under both its DAO method and its SQL text
+     * @param daoMethod e.g. "ProductDAO.searchProducts", or null if not called from a DAO
+     * @param rows rows affected by an update; rows returned by a query are added with addRows()
+     */
+    public static void record(String daoMethod, String sql, long elapsedNanos, long rows, boolean error) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        if (daoMethod != null) metric(METHOD_PREFIX + daoMethod).record(micros, rows, error);
+        if (sql != null) metric(SQL_PREFIX + normalize(sql)).record(micros, rows, error);
+    }
+
+    /**
+     * Record a timed operation that is not a single statement, e.g. "tx.commit"
+     */
+    public static void record(String key, long elapsedNanos, boolean error) {
+        metric(key).record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), 0, error);
+    }
+
+    /**
+     * Add rows read from a result set once it has been consumed
+     */
+    public static void addRows(String daoMethod, String sql, long rows) {
+        if (rows <= 0) return;
+        if (daoMethod != null) metric(METHOD_PREFIX + daoMethod).rows.add(rows);
+        if (sql != null) metric(SQL_PREFIX + normalize(sql)).rows.add(rows);
+    }
+
+    /**
+     * The statement with every placeholder list cut to "?, ..." and repeated tuples to one, e.g.
+     * "VALUES (?, ?), (?, ?)" to "VALUES (?, ...), ..."
+     */
+    static String normalize(String sql) {
+        if (sql.indexOf('?') < 0) return sql;
+        String s = PLACEHOLDER_LIST.matcher(sql).replaceAll("?, ...");
+        return REPEATED_TUPLES.matcher(s).replaceAll("$1, ...");
+    }
+
+    /**
+     * Name of the DAO method (Class.method) on the current call stack, or null
+     */
+    public static String currentDaoMethod() {
+        return WALKER.walk(frames -> frames
+            .filter(f -> f.getClassName().startsWith("dao.") && !f.getClassName().equals("dao.AsyncDAO"))
+            .findFirst()
+            .map(f -> f.getClassName().substring(4) + "." + f.getMethodName())
+            .orElse(null));
+    }
+
+    /**
+     * Current numbers for one key (METHOD_PREFIX or SQL_PREFIX + name), or null if never recorded
+     */
+    public static Snapshot get(String key) {
+        Metric m = METRICS.get(key);
+        return m == null ? null : m.snapshot(key);
+    }
+
+    /**
+     * Current numbers for every key, slowest total time first
+     */
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> list = new ArrayList<>();
+        for (Map.Entry<String, Metric> e : METRICS.entrySet()) list.add(e.getValue().snapshot(e.getKey()));
+        list.sort(Comparator.comparingDouble((Snapshot s) -> s.getMeanMicros() * s.getCalls()).reversed());
+        return list;
+    }
+
+    /**
+     * Clear all counters
+     */
+    public static void reset() {
+        METRICS.clear();
+    }
+
+    /**
+     * Write a plain-text report of all metrics to the given file
+     */
+    public static void dumpTo(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        try (FileWriter fw = new FileWriter(file)) {
+            fw.write("Query metrics at " + LocalDateTime.now().format(FMT) + "\n");
+            fw.write(String.format("%10s %8s %10s %10s %10s %10s %10s %10s  %s%n",
+                    "calls", "errors", "rows", "mean_us", "p50_us", "p90_us", "p99_us", "max_us", "key"));
+            for (Snapshot s : snapshot()) {
+                fw.write(String.format("%10d %8d %10d %10.0f %10d %10d %10d %10d  %s%n",
+                        s.getCalls(), s.getErrors(), s.getRows(), s.getMeanMicros(),
+                        s.getP50Micros(), s.getP90Micros(), s.getP99Micros(), s.getMaxMicros(),
+                        s.getKey().replaceAll("\\s+", " ")));
+            }
+        }
+    }
+
+    private static Metric metric(String key) {
+        Metric m = METRICS.get(key);
+        if (m != null) return m;
+        // the cap may be overshot by a few keys racing past this check
+        if (METRICS.size() >= DatabaseConfig.QUERY_METRICS_MAX_KEYS) key = OTHER_KEY;
+        return METRICS.computeIfAbsent(key, k -> new Metric());
+    }
+
+    private static final class Metric {
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(long micros, long rowCount, boolean error) {
+            latency.record(micros);
+            if (error) errors.increment();
+            if (rowCount > 0) rows.add(rowCount);
+        }
+
+        Snapshot snapshot(String key) {
+            return new Snapshot(key, latency.getCount(), errors.sum(), rows.sum(), latency.getMeanMicros(),
+                    latency.getPercentileMicros(50), latency.getPercentileMicros(90),
+                    latency.getPercentileMicros(99), latency.getMaxMicros());
+        }
+    }
+
+    /**
+     * Metrics for one key at a point in time
+     */
+    public static final class Snapshot {
+        private final String key;
+        private final long calls;
+        private final long errors;
+        private final long rows;
+        private final double meanMicros;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        Snapshot(String key, long calls, long errors, long rows, double meanMicros,
+                 long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+            this.key = key;
+            this.calls = calls;
+            this.errors = errors;
+            this.rows = rows;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public String getKey() { return key; }
+        public long getCalls() { return calls; }
+        public long getErrors() { return errors; }
+        public long getRows() { return rows; }
+        public double getMeanMicros() { return meanMicros; }
+        public long getP50Micros() { return p50Micros; }
+        public long getP90Micros() { return p90Micros; }
+        public long getP99Micros() { return p99Micros; }
+        public long getMaxMicros() { return maxMicros; }
+
+        @Override
+        public String toString() {
+            return key + "{calls=" + calls + ", errors=" + errors + ", rows=" + rows +
+                    ", p50=" + p50Micros + "us, p99=" + p99Micros + "us, max=" + maxMicros + "us}";
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package database;
+
+import config.DatabaseConfig;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import utils.Logger;
+
+/**
+ * Sales Partition Manager
+ * Maintains monthly RANGE partitions on sales(sale_date) when SALES_PARTITIONING_ENABLED is on.
+ * Partition pYYYYMM holds the sales of that month; pmax catches anything later.
+ * Future months are split off pmax ahead of time, and old months are removed with
+ * DROP PARTITION, which is a metadata operation instead of a row-by-row DELETE.
+ * Queries prune partitions when they compare sale_date itself against constants or
+ * parameters (sale_date >= ? AND sale_date < ?), not a function of it.
+ */
+public class SalesPartitionManager {
+    private static final DateTimeFormatter NAME_FMT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private SalesPartitionManager() {
+    }
+
+    /**
+     * Migration step: convert sales into a table partitioned by month.
+     * MySQL does not allow foreign keys on partitioned tables, and every unique key must
+     * include sale_date, so the foreign keys are dropped and the primary key becomes (sale_id, sale_date).
+     */
+    static void partitionSalesTable(Connection conn) throws SQLException {
+        if (isPartitioned(conn)) return;
+        try (Statement stmt = conn.createStatement()) {
+            for (String fk : foreignKeys(conn)) {
+                stmt.executeUpdate("ALTER TABLE sales DROP FOREIGN KEY " + fk);
+            }
+            stmt.executeUpdate("UPDATE sales SET sale_date = CURRENT_TIMESTAMP WHERE sale_date IS NULL");
+            stmt.executeUpdate("ALTER TABLE sales MODIFY sale_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                "DROP PRIMARY KEY, ADD PRIMARY KEY (sale_id, sale_date)");
+
+            YearMonth first = YearMonth.now();
+            try (ResultSet rs = stmt.executeQuery("SELECT MIN(sale_date) FROM sales")) {
+                if (rs.next() && rs.getTimestamp(1) != null) {
+                    first = YearMonth.from(rs.getTimestamp(1).toLocalDateTime());
+                }
+            }
+            YearMonth last = YearMonth.now().plusMonths(DatabaseConfig.SALES_PARTITION_MONTHS_AHEAD);
+            StringBuilder sql = new StringBuilder("ALTER TABLE sales PARTITION BY RANGE (UNIX_TIMESTAMP(sale_date)) (");
+            for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+                sql.append(partitionDefinition(m)).append(", ");
+            }
+            sql.append("PARTITION pmax VALUES LESS THAN MAXVALUE)");
+            stmt.executeUpdate(sql.toString());
+        }
+    }
+
+    /**
+     * Make sure partitions exist for the current month and SALES_PARTITION_MONTHS_AHEAD months after it.
+     * Does nothing if sales is not partitioned.
+     * @return number of partitions added
+     */
+    public static int ensureFuturePartitions(Connection conn) throws SQLException {
+        List<YearMonth> months = partitionMonths(conn);
+        if (months.isEmpty()) return 0;
+        YearMonth newest = months.get(months.size() - 1);
+        YearMonth target = YearMonth.now().plusMonths(DatabaseConfig.SALES_PARTITION_MONTHS_AHEAD);
+        if (!newest.isBefore(target)) return 0;
+
+        // pmax only holds rows dated past the newest month, so splitting it is cheap
+        StringBuilder sql = new StringBuilder("ALTER TABLE sales REORGANIZE PARTITION pmax INTO (");
+        int added = 0;
+        for (YearMonth m = newest.plusMonths(1); !m.isAfter(target); m = m.plusMonths(1)) {
+            sql.append(partitionDefinition(m)).append(", ");
+            added++;
+        }
+        sql.append("PARTITION pmax VALUES LESS THAN MAXVALUE)");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql.toString());
+        }
+        Logger.info("Added " + added + " sales partition(s) up to " + target);
+        return added;
+    }
+
+    /**
+     * Drop the partition of one month; its rows are deleted with it. Other months are left alone.
+     * @return false if the month has no partition of its own
+     */
+    public static boolean dropPartition(Connection conn, YearMonth month) throws SQLException {
+        if (!partitionMonths(conn).contains(month)) return false;
+        String name = month.format(NAME_FMT);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE sales DROP PARTITION " + name);
+        }
+        Logger.info("Dropped sales partition " + name);
+        return true;
+    }
+
+    /**
+     * Whether the sales table is partitioned
+     */
+    public static boolean isPartitioned(Connection conn) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sales' AND PARTITION_NAME IS NOT NULL";
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+
+    /**
+     * Months that have their own partition, oldest first
+     */
+    public static List<YearMonth> partitionMonths(Connection conn) throws SQLException {
+        String sql = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'sales' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+        List<YearMonth> months = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                if (name.matches("p\\d{6}")) months.add(YearMonth.parse(name, NAME_FMT));
+            }
+        }
+        return months;
+    }
+
+    private static List<String> foreignKeys(Connection conn) throws SQLException {
+        String sql = "SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS " +
+            "WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'sales'";
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) names.add(rs.getString(1));
+        }
+        return names;
+    }
+
+    // partition for one month: rows with sale_date before the first day of the next month
+    private static String partitionDefinition(YearMonth month) {
+        LocalDate next = month.plusMonths(1).atDay(1);
+        return "PARTITION " + month.format(NAME_FMT) + " VALUES LESS THAN (UNIX_TIMESTAMP('" + next + " 00:00:00'))";
+    }
+}
@@ -0,0 +1,171 @@
+package database;
+
+import config.DatabaseConfig;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import utils.Logger;
+
+/**
+ * Slow Query Log
+ * Statements slower than SLOW_QUERY_THRESHOLD_MS are written to a rolling log file with
+ * their bound parameters, duration, row count, DAO method and calling controller.
+ * For SELECTs the EXPLAIN plan is captured on a separate pooled connection.
+ * All file and EXPLAIN work happens on one background thread so callers never wait for it.
+ */
+public class SlowQueryLog {
+    private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final int MAX_PARAM_LENGTH = 200;
+    private static final int MAX_QUEUED_ENTRIES = 1000;
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    // bounded queue: under a storm of slow queries we drop entries rather than grow without limit
+    private static final ExecutorService WRITER = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(MAX_QUEUED_ENTRIES), r -> {
+            Thread t = new Thread(r, "slow-query-log");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private SlowQueryLog() {
+    }
+
+    public static boolean isEnabled() {
+        return DatabaseConfig.SLOW_QUERY_THRESHOLD_MS >= 0;
+    }
+
+    public static boolean isSlow(long elapsedNanos) {
+        return isEnabled() && TimeUnit.NANOSECONDS.toMillis(elapsedNanos) >= DatabaseConfig.SLOW_QUERY_THRESHOLD_MS;
+    }
+
+    /**
+     * Name of the GUI controller method (Class.method) on the current call stack, or null
+     */
+    public static String currentController() {
+        return WALKER.walk(frames -> frames
+            .filter(f -> f.getClassName().startsWith("gui."))
+            .findFirst()
+            .map(f -> f.getClassName().substring(4) + "." + f.getMethodName())
+            .orElse(null));
+    }
+
+    /**
+     * Queue a slow statement for logging
+     * @param params bound parameters by index (index 0 = parameter 1), may be null
+     */
+    public static void record(String sql, List<Object> params, long elapsedNanos, long rows,
+                              String daoMethod, String controller) {
+        if (sql == null) return;
+        LocalDateTime at = LocalDateTime.now();
+        WRITER.execute(() -> write(at, sql, params, elapsedNanos, rows, daoMethod, controller));
+    }
+
+    private static void write(LocalDateTime at, String sql, List<Object> params, long elapsedNanos, long rows,
+                              String daoMethod, String controller) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(at.format(FMT))
+          .append(String.format(Locale.ROOT, "  duration=%.1fms", elapsedNanos / 1_000_000.0))
+          .append("  rows=").append(rows)
+          .append("  dao=").append(daoMethod == null ? "-" : daoMethod)
+          .append("  caller=").append(controller == null ? "-" : controller)
+          .append('\n');
+        sb.append(sql.trim().replaceAll("\\s+", " ")).append(";\n");
+        if (params != null && !params.isEmpty()) {
+            sb.append("-- params: ");
+            for (int i = 0; i < params.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(i + 1).append('=').append(formatParam(params.get(i)));
+            }
+            sb.append('\n');
+        }
+        if (DatabaseConfig.SLOW_QUERY_EXPLAIN && isSelect(sql)) {
+            sb.append(explain(sql, params));
+        }
+        sb.append('\n');
+        append(sb.toString());
+    }
+
+    private static boolean isSelect(String sql) {
+        String s = sql.trim();
+        return s.regionMatches(true, 0, "SELECT", 0, 6);
+    }
+
+    // runs on a separate connection so the caller's connection and transaction are untouched
+    private static String explain(String sql, List<Object> params) {
+        StringBuilder sb = new StringBuilder("-- EXPLAIN:\n");
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+            if (params != null) {
+                for (int i = 0; i < params.size(); i++) ps.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData md = rs.getMetaData();
+                int cols = md.getColumnCount();
+                sb.append("--");
+                for (int c = 1; c <= cols; c++) sb.append(' ').append(md.getColumnLabel(c)).append(" |");
+                sb.append('\n');
+                while (rs.next()) {
+                    sb.append("--");
+                    for (int c = 1; c <= cols; c++) sb.append(' ').append(rs.getString(c)).append(" |");
+                    sb.append('\n');
+                }
+            }
+        } catch (SQLException e) {
+            sb.append("-- (EXPLAIN failed: ").append(e.getMessage()).append(")\n");
+        }
+        return sb.toString();
+    }
+
+    private static String formatParam(Object value) {
+        if (value == null) return "NULL";
+        String s = String.valueOf(value);
+        if (s.length() > MAX_PARAM_LENGTH) s = s.substring(0, MAX_PARAM_LENGTH) + "...";
+        if (value instanceof Number || value instanceof Boolean) return s;
+        return "'" + s.replace("'", "''") + "'";
+    }
+
+    private static void append(String text) {
+        File file = new File(DatabaseConfig.SLOW_QUERY_LOG_FILE);
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) parent.mkdirs();
+            if (file.length() + text.length() > DatabaseConfig.SLOW_QUERY_LOG_MAX_BYTES) roll(file);
+            try (FileWriter fw = new FileWriter(file, true)) {
+                fw.write(text);
+            }
+        } catch (IOException e) {
+            Logger.error("Failed to write slow query log", e);
+        }
+    }
+
+    // slow-queries.log -> .1 -> .2 ... the oldest backup is deleted
+    private static void roll(File file) {
+        int backups = DatabaseConfig.SLOW_QUERY_LOG_BACKUPS;
+        File oldest = new File(file.getPath() + "." + backups);
+        if (oldest.exists() && !oldest.delete()) Logger.warn("Could not delete " + oldest);
+        for (int i = backups - 1; i >= 1; i--) {
+            File from = new File(file.getPath() + "." + i);
+            if (from.exists() && !from.renameTo(new File(file.getPath() + "." + (i + 1)))) {
+                Logger.warn("Could not roll " + from);
+            }
+        }
+        if (backups > 0) {
+            if (!file.renameTo(new File(file.getPath() + ".1"))) Logger.warn("Could not roll " + file);
+        } else if (!file.delete()) {
+            Logger.warn("Could not truncate " + file);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import utils.Logger;
+
+/**
+ * Prepared Statement Cache
+ * One cache per physical pooled connection, keyed by SQL text, with LRU eviction.
+ * A statement is checked out while a DAO uses it and checked back in when the DAO
+ * closes it, so hot queries keep a single prepared handle for the life of the connection.
+ */
+public class StatementCache {
+    // counters shared by all connections
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+    private static final LongAdder BYPASSES = new LongAdder();
+    private static final AtomicInteger CACHED = new AtomicInteger();
+
+    private final int maxSize;
+    private final Map<String, Entry> entries;
+
+    StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        // access-order map gives us LRU iteration for free
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= StatementCache.this.maxSize) return false;
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Something that prepares a statement on the physical connection
+     */
+    interface Preparer {
+        PreparedStatement prepare() throws SQLException;
+    }
+
+    /**
+     * Check out the statement for this key, preparing it on a miss.
+     * Returns null when caching is disabled or the cached statement is already checked out,
+     * in which case the caller should prepare an uncached statement.
+     */
+    synchronized Entry checkOut(String key, Preparer preparer) throws SQLException {
+        if (maxSize <= 0) return null;
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.inUse) {
+                BYPASSES.increment();
+                return null;
+            }
+            HITS.increment();
+        } else {
+            MISSES.increment();
+            entry = new Entry(preparer.prepare());
+            entries.put(key, entry);
+            CACHED.incrementAndGet();
+        }
+        entry.inUse = true;
+        return entry;
+    }
+
+    /**
+     * Return a statement to the cache once its owner has closed it
+     */
+    synchronized void checkIn(Entry entry) {
+        entry.inUse = false;
+        if (entry.evicted) {
+            closeQuietly(entry.statement);
+            return;
+        }
+        try {
+            entry.statement.clearParameters();
+            entry.statement.clearBatch();
+        } catch (SQLException e) {
+            // a statement we cannot reset is not safe to reuse
+            entries.values().remove(entry);
+            CACHED.decrementAndGet();
+            closeQuietly(entry.statement);
+        }
+    }
+
+    /**
+     * Close every cached statement; called when the physical connection is closed
+     */
+    synchronized void closeAll() {
+        List<Entry> all = new ArrayList<>(entries.values());
+        entries.clear();
+        for (Entry entry : all) {
+            CACHED.decrementAndGet();
+            entry.evicted = true;
+            if (!entry.inUse) closeQuietly(entry.statement);
+        }
+    }
+
+    private void evict(Entry entry) {
+        EVICTIONS.increment();
+        CACHED.decrementAndGet();
+        entry.evicted = true;
+        // statements in use are closed when they are checked back in
+        if (!entry.inUse) closeQuietly(entry.statement);
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            Logger.warn("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Snapshot of the cache counters across all connections
+     */
+    public static Stats getStats() {
+        return new Stats(HITS.sum(), MISSES.sum(), EVICTIONS.sum(), BYPASSES.sum(), CACHED.get());
+    }
+
+    /**
+     * A cached statement and its checkout state
+     */
+    static final class Entry {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * Cache counters at a point in time
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long bypasses;
+        private final int cachedStatements;
+
+        Stats(long hits, long misses, long evictions, long bypasses, int cachedStatements) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.bypasses = bypasses;
+            this.cachedStatements = cachedStatements;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getBypasses() { return bypasses; }
+        public int getCachedStatements() { return cachedStatements; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "StatementCache{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", hitRate=" + String.format("%.1f%%", getHitRate() * 100) +
+                    ", evictions=" + evictions +
+                    ", bypasses=" + bypasses +
+                    ", cached=" + cachedStatements +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import utils.Logger;
+
+/**
+ * Transaction Class
+ * Unit of work bound to the current thread. Transaction.run() borrows one connection,
+ * starts a transaction and commits it when the work returns, or rolls it back if the work
+ * throws or calls setRollbackOnly(). While it runs, DatabaseConnection.getConnection() and
+ * getReadConnection() on the same thread hand out that same connection, so ordinary DAO
+ * methods called inside the work join the transaction. A nested run() joins the outer one.
+ * A statement that fails inside the work marks the transaction rollback-only even if the
+ * DAO catches the exception, so a swallowed error can never commit half the work.
+ * <pre>
+ * Transaction.run(tx -&gt; {
+ *     productDAO.updateStock(id, qty);
+ *     return saleDAO.createSale(sale);
+ * });
+ * </pre>
+ * Commit and rollback times are recorded in QueryMetrics as "tx.commit" and "tx.rollback".
+ */
+public final class Transaction {
+    /**
+     * Work to run inside a transaction
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute(Transaction tx) throws SQLException;
+    }
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final Connection joined;
+    private final List<Runnable> afterCommit = new ArrayList<>(2);
+    private boolean rollbackOnly;
+
+    private Transaction(Connection connection) {
+        this.connection = connection;
+        this.joined = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, (proxy, method, args) -> invokeJoined(proxy, method, args));
+    }
+
+    /**
+     * Run work in a read-write transaction with the connection's default isolation level
+     */
+    public static <T> T run(Work<T> work) throws SQLException {
+        return run(Options.DEFAULT, work);
+    }
+
+    /**
+     * Run work in a transaction with the given options.
+     * If a transaction is already active on this thread the work joins it and the options are ignored.
+     */
+    public static <T> T run(Options options, Work<T> work) throws SQLException {
+        Transaction outer = CURRENT.get();
+        if (outer != null) {
+            try {
+                return work.execute(outer);
+            } catch (SQLException | RuntimeException | Error e) {
+                outer.rollbackOnly = true;
+                throw e;
+            }
+        }
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            if (options.readOnly) conn.setReadOnly(true);
+            if (options.isolation != Options.DEFAULT_ISOLATION) conn.setTransactionIsolation(options.isolation);
+            conn.setAutoCommit(false);
+            Transaction tx = new Transaction(conn);
+            T result;
+            CURRENT.set(tx);
+            try {
+                result = work.execute(tx);
+            } catch (SQLException | RuntimeException | Error e) {
+                tx.rollbackQuietly(e);
+                throw e;
+            } finally {
+                CURRENT.remove();
+            }
+            if (tx.rollbackOnly) {
+                tx.finish("tx.rollback", false);
+            } else {
+                tx.finish("tx.commit", true);
+                tx.runAfterCommit();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The transaction active on the current thread, or null
+     */
+    public static Transaction current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * The transaction's connection. Closing it, or calling commit/rollback/setAutoCommit on it, is not allowed;
+     * the transaction ends when run() returns.
+     */
+    public Connection getConnection() {
+        return joined;
+    }
+
+    /**
+     * Roll back instead of committing when the work returns
+     */
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+
+    /**
+     * Run an action once the transaction has committed (never after a rollback)
+     */
+    public void afterCommit(Runnable action) {
+        afterCommit.add(action);
+    }
+
+    private void finish(String metric, boolean commit) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            if (commit) connection.commit(); else connection.rollback();
+        } catch (SQLException e) {
+            failed = true;
+            if (commit) rollbackQuietly(e);
+            throw e;
+        } finally {
+            if (QueryMetrics.isEnabled()) QueryMetrics.record(metric, System.nanoTime() - start, failed);
+        }
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            // the transaction is already over; the pool resets or discards the connection on return
+            Logger.warn("Could not restore auto-commit: " + e.getMessage());
+        }
+    }
+
+    private void rollbackQuietly(Throwable cause) {
+        try {
+            finish("tx.rollback", false);
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+            // the pool rolls back again, or discards the connection, when it is returned
+        }
+    }
+
+    private void runAfterCommit() {
+        for (Runnable action : afterCommit) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                Logger.error("After-commit action failed", e);
+            }
+        }
+    }
+
+    private Object invokeJoined(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+                return null; // the transaction returns the connection when it ends
+            case "commit":
+            case "rollback":
+            case "setAutoCommit":
+                throw new SQLException(method.getName() + "() is not allowed inside Transaction.run()");
+            case "unwrap":
+                if (((Class<?>) args[0]).isInstance(proxy)) return proxy;
+                break;
+            case "isWrapperFor":
+                if (((Class<?>) args[0]).isInstance(proxy)) return true;
+                break;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Isolation level and read-only hint for a new transaction
+     */
+    public static final class Options {
+        static final int DEFAULT_ISOLATION = -1;
+        public static final Options DEFAULT = new Options(DEFAULT_ISOLATION, false);
+
+        private final int isolation;
+        private final boolean readOnly;
+
+        private Options(int isolation, boolean readOnly) {
+            this.isolation = isolation;
+            this.readOnly = readOnly;
+        }
+
+        /**
+         * Options with the given Connection.TRANSACTION_* level
+         */
+        public Options isolation(int level) {
+            return new Options(level, readOnly);
+        }
+
+        /**
+         * Options for a transaction that only reads (lets InnoDB skip write bookkeeping)
+         */
+        public Options readOnly() {
+            return new Options(isolation, true);
+        }
+
+        public int getIsolation() { return isolation; }
+        public boolean isReadOnly() { return readOnly; }
+    }
+}
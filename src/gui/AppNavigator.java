@@ -1,5 +1,8 @@
 package gui;
 
+import database.CircuitBreaker;
+import database.DatabaseConnection;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -7,10 +10,26 @@ import javafx.stage.Stage;
 import utils.Logger;
 
 public class AppNavigator {
+    private static final String DB_DOWN_SUFFIX = " (database unavailable - retrying)";
     private static Stage primaryStage;
+    private static boolean dbStateListenerAdded;
 
     public static void init(Stage stage) {
         primaryStage = stage;
+        if (!dbStateListenerAdded) {
+            dbStateListenerAdded = true;
+            // reads fall back from the replica on their own, so only the primary is worth showing
+            DatabaseConnection.getInstance().addConnectionStateListener((name, from, to, cause) -> {
+                if ("primary".equals(name)) Platform.runLater(() -> showDatabaseState(to));
+            });
+        }
+    }
+
+    private static void showDatabaseState(CircuitBreaker.State state) {
+        if (primaryStage == null) return;
+        String title = primaryStage.getTitle() == null ? "" : primaryStage.getTitle();
+        if (title.endsWith(DB_DOWN_SUFFIX)) title = title.substring(0, title.length() - DB_DOWN_SUFFIX.length());
+        primaryStage.setTitle(state == CircuitBreaker.State.CLOSED ? title : title + DB_DOWN_SUFFIX);
     }
 
     public static Stage getPrimaryStage() {
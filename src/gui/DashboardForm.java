@@ -1,8 +1,11 @@
 // JavaFX version of DashboardForm
 package gui;
 
+import config.DatabaseConfig;
 import dao.*;
 import models.*;
+import services.ExpiryScheduler;
+import services.LowStockTracker;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -19,6 +22,7 @@ import javafx.geometry.Rectangle2D;
 import javafx.fxml.FXMLLoader;
 import utils.Logger;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -81,10 +85,10 @@ public class DashboardForm extends Application {
     }
 
     private void showLowStockAlert() {
-        List<Product> low = productDAO.getLowStockProducts();
+        List<LowStockTracker.Level> low = LowStockTracker.getInstance().getLowStock();
         if (!low.isEmpty()) {
             StringBuilder sb = new StringBuilder("Low stock items (" + low.size() + "):\n");
-            low.stream().limit(5).forEach(p -> sb.append("- ").append(p.getProductName()).append(" (").append(p.getStockQuantity()).append(")\n"));
+            low.stream().limit(5).forEach(p -> sb.append("- ").append(p.getProductName()).append(" (").append(p.getStock()).append(")\n"));
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alert.setTitle("Low Stock Alert");
             alert.setHeaderText(null);
@@ -182,16 +186,17 @@ public class DashboardForm extends Application {
         statsPanel.setAlignment(Pos.CENTER_LEFT);
         List<Product> products = productDAO.getAllProducts();
         int totalProducts = products.size();
-        int lowStocks = 0;
-        for (Product p : products) {
-            if (p.isLowStock()) lowStocks++;
-        }
-        Map<String, Integer> top = saleDAO.getTopSellingProducts(1, 30);
+        int lowStocks = LowStockTracker.getInstance().getLowStockCount();
+        LocalDate today = LocalDate.now();
+        Map<String, Integer> top = new SalesRollupDAO().getTopSellingProducts(1,
+                java.sql.Date.valueOf(today.minusDays(29)), java.sql.Date.valueOf(today));
         int topSelling = top.values().stream().findFirst().orElse(0);
         statsPanel.getChildren().add(createInventoryStat("Sales (7d)", String.valueOf(saleDAO.getLast7DaysSalesCount()), "Last 7 days", Color.web("#007bff")));
         statsPanel.getChildren().add(createInventoryStat("Total Products", String.valueOf(totalProducts), "All items", Color.web("#ff9800")));
         statsPanel.getChildren().add(createInventoryStat("Top Selling (30d)", String.valueOf(topSelling), "Qty sold", Color.web("#4caf50")));
         statsPanel.getChildren().add(createInventoryStat("Low Stocks", String.valueOf(lowStocks), "At/below threshold", Color.web("#f44336")));
+        statsPanel.getChildren().add(createInventoryStat("Expiring Soon", String.valueOf(ExpiryScheduler.getInstance().getExpiringSoonCount()),
+                "Within " + DatabaseConfig.EXPIRY_ALERT_DAYS + " days", Color.web("#9c27b0")));
         panel.getChildren().add(statsPanel);
         return panel;
     }
@@ -1,16 +1,24 @@
 package gui;
 
+import config.DatabaseConfig;
+import dao.AsyncDAO;
 import dao.ProductDAO;
 import dao.SaleDAO;
 import dao.RequestDAO;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import models.Product;
+import services.ExpiryScheduler;
+import services.LowStockTracker;
+import java.sql.Date;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import utils.Logger;
 
 public class DashboardFormController {
@@ -32,10 +40,8 @@ public class DashboardFormController {
     @FXML private Label totalProductsLabel;
     @FXML private Label topSellingLabel;
     @FXML private Label lowStocksLabel;
-
-    private final ProductDAO productDAO = new ProductDAO();
-    private final SaleDAO saleDAO = new SaleDAO();
-    private final RequestDAO requestDAO = new RequestDAO();
+    @FXML private Label expiringSoonLabel;
+    @FXML private Label expiringSoonHint;
 
     @FXML
     public void initialize() {
@@ -58,33 +64,55 @@ public class DashboardFormController {
     }
 
     private void loadDashboardData() {
+        // independent queries run in parallel on background threads instead of back to back
+        AsyncDAO async = AsyncDAO.getInstance();
+        CompletableFuture<List<Product>> productsFuture = async.products(ProductDAO::getAllProducts);
+        CompletableFuture<Integer> salesCountFuture = async.sales(SaleDAO::getLast7DaysSalesCount);
+        CompletableFuture<Integer> outOfStockFuture = async.products(ProductDAO::getOutOfStockCount);
+        CompletableFuture<Integer> requestedFuture = async.requests(RequestDAO::getRequestsCount);
+        // kept current in memory; only its first load reads the table
+        CompletableFuture<Integer> lowStockFuture = async.supply(() -> LowStockTracker.getInstance().getLowStockCount());
+        CompletableFuture<Integer> expiringFuture = async.supply(() -> ExpiryScheduler.getInstance().getExpiringSoonCount());
+        LocalDate today = LocalDate.now();
+        CompletableFuture<Map<String, Integer>> topFuture = async.rollups(
+                dao -> dao.getTopSellingProducts(1, Date.valueOf(today.minusDays(29)), Date.valueOf(today)));
+
+        CompletableFuture.allOf(productsFuture, salesCountFuture, outOfStockFuture, requestedFuture, lowStockFuture,
+                expiringFuture, topFuture)
+            .whenComplete((ignored, ex) -> Platform.runLater(() -> {
+                if (ex != null) {
+                    Logger.error("Failed to load dashboard data", ex);
+                    return;
+                }
+                showDashboardData(productsFuture.join(), salesCountFuture.join(), outOfStockFuture.join(),
+                        requestedFuture.join(), lowStockFuture.join(), expiringFuture.join(), topFuture.join());
+            }));
+    }
+
+    private void showDashboardData(List<Product> products, int salesCount, int outOfStock,
+                                   int requestedItems, int lowStocks, int expiringSoon, Map<String, Integer> top) {
         // Best selling table
-        List<Product> products = productDAO.getAllProducts();
         bestSellingTable.getItems().clear();
         bestSellingTable.getItems().addAll(products);
 
         // Stats
-        int salesCount = saleDAO.getLast7DaysSalesCount();
-        int outOfStock = productDAO.getOutOfStockCount();
-        int requestedItems = requestDAO.getRequestsCount();
         salesCountLabel.setText(String.valueOf(salesCount));
         outOfStockLabel.setText(String.valueOf(outOfStock));
         requestedItemsLabel.setText(String.valueOf(requestedItems));
 
         // Inventory summary
         int totalProducts = products.size();
-        int lowStocks = 0;
-        for (Product p : products) if (p.isLowStock()) lowStocks++;
-        Map<String, Integer> top = saleDAO.getTopSellingProducts(1, 30);
         String topSellingTxt = "-";
         if (top != null && !top.isEmpty()) {
             Map.Entry<String,Integer> e = top.entrySet().iterator().next();
             topSellingTxt = e.getKey() + " (" + e.getValue() + ")";
         }
-        sales7dLabel.setText(String.valueOf(saleDAO.getLast7DaysSalesCount()));
+        sales7dLabel.setText(String.valueOf(salesCount));
         totalProductsLabel.setText(String.valueOf(totalProducts));
         topSellingLabel.setText(topSellingTxt);
         lowStocksLabel.setText(String.valueOf(lowStocks));
+        expiringSoonLabel.setText(String.valueOf(expiringSoon));
+        expiringSoonHint.setText("Within " + DatabaseConfig.EXPIRY_ALERT_DAYS + " days");
     }
 
     // keep other helper methods for consistency (unused by FXML path)
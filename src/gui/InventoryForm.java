@@ -3,6 +3,7 @@ package gui;
 
 import dao.ProductDAO;
 import models.Product;
+import models.UpdateResult;
 import utils.SessionManager;
 import javafx.application.Application;
 import javafx.scene.Scene;
@@ -251,6 +252,7 @@ public class InventoryForm extends Application {
             showAlert("Only Admin can edit products.", Alert.AlertType.WARNING);
             return;
         }
+        int loadedStock = product.getStockQuantity();
         Dialog<Product> dialog = new Dialog<>();
         dialog.setTitle("Edit Product");
         dialog.setHeaderText("Edit the product details");
@@ -312,11 +314,25 @@ public class InventoryForm extends Application {
 
         dialog.showAndWait().ifPresent(updatedProduct -> {
             try {
-                if (productDAO.updateProduct(updatedProduct)) {
-                    showAlert("Product updated successfully!", Alert.AlertType.INFORMATION);
-                    loadProducts(null);
-                } else {
-                    showAlert("Failed to update product!", Alert.AlertType.ERROR);
+                // stock is only written when it was edited, so sales made meanwhile are not undone
+                UpdateResult result = updatedProduct.getStockQuantity() == loadedStock
+                    ? productDAO.updateProductDetails(updatedProduct)
+                    : productDAO.updateProduct(updatedProduct, loadedStock);
+                switch (result) {
+                    case UPDATED -> {
+                        showAlert("Product updated successfully!", Alert.AlertType.INFORMATION);
+                        loadProducts(null);
+                    }
+                    case CONFLICT -> {
+                        showAlert("This product was changed by someone else while you were editing it. " +
+                                  "The list has been reloaded; please make your changes again.", Alert.AlertType.WARNING);
+                        loadProducts(null);
+                    }
+                    case NOT_FOUND -> {
+                        showAlert("This product no longer exists.", Alert.AlertType.WARNING);
+                        loadProducts(null);
+                    }
+                    default -> showAlert("Failed to update product!", Alert.AlertType.ERROR);
                 }
             } catch (Exception e) {
                 showAlert("Invalid input: " + e.getMessage(), Alert.AlertType.ERROR);
@@ -1,7 +1,12 @@
 package gui;
 
+import dao.AsyncDAO;
 import dao.ProductDAO;
 import models.Product;
+import models.UpdateResult;
+import services.ProductImportService;
+import services.ProductSearchIndex;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -12,15 +17,21 @@ import javafx.event.ActionEvent;
 import utils.Logger;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
 public class InventoryFormController {
+    private static final int SEARCH_RESULTS = 200;
+
     @SuppressWarnings("unused") @FXML private VBox mainPanel;
     @SuppressWarnings("unused") @FXML private VBox sidebarPlaceholder;
 
     @SuppressWarnings("unused") @FXML private TextField searchField;
     @SuppressWarnings("unused") @FXML private Button searchBtn;
     @SuppressWarnings("unused") @FXML private Button addButton;
+    @SuppressWarnings("unused") @FXML private Button importButton;
     @SuppressWarnings("unused") @FXML private Button downloadButton;
     @SuppressWarnings("unused") @FXML private TableView<Product> productTable;
     @SuppressWarnings("unused") @FXML private TableColumn<Product,Integer> colId;
@@ -33,6 +44,8 @@ public class InventoryFormController {
     @SuppressWarnings("unused") @FXML private Button deleteButton;
 
     private final ProductDAO productDAO = new ProductDAO();
+    // bumped by every load, so results of an older search that finish late are dropped
+    private int loadSeq;
 
     @FXML
     public void initialize() {
@@ -49,7 +62,10 @@ public class InventoryFormController {
 
         // wire buttons
         searchBtn.setOnAction(this::onSearch);
+        // search as you type; names are matched in the in-memory index, off the FX thread
+        searchField.textProperty().addListener((obs, oldText, text) -> loadProducts(text.trim()));
         addButton.setOnAction(this::onAdd);
+        importButton.setOnAction(this::onImport);
         downloadButton.setOnAction(this::onDownload);
         editButton.setOnAction(this::onEdit);
         deleteButton.setOnAction(this::onDelete);
@@ -60,6 +76,7 @@ public class InventoryFormController {
     // Action handlers to avoid 'parameter not used' inspection warnings
     private void onSearch(ActionEvent e) { loadProducts(searchField.getText().trim()); }
     private void onAdd(ActionEvent e) { openAddDialog(); }
+    private void onImport(ActionEvent e) { importProducts(); }
     private void onDownload(ActionEvent e) { exportAllProducts(); }
     private void onEdit(ActionEvent e) { editSelectedAction(); }
     private void onDelete(ActionEvent e) { deleteSelectedProduct(); }
@@ -127,6 +144,7 @@ public class InventoryFormController {
     private void openEditDialog(Product product) {
         if (!utils.SessionManager.isAdmin()) { showAlert("Only Admin can edit products.", Alert.AlertType.WARNING); return; }
         if (product == null) return;
+        int loadedStock = product.getStockQuantity();
         Dialog<Product> dialog = new Dialog<>();
         dialog.setTitle("Edit Product"); dialog.setHeaderText("Edit the product details");
         GridPane grid = new GridPane(); grid.setHgap(10); grid.setVgap(10); grid.setPadding(new javafx.geometry.Insets(20));
@@ -163,11 +181,25 @@ public class InventoryFormController {
         });
         dialog.showAndWait().ifPresent(updatedProduct -> {
             try {
-                if (productDAO.updateProduct(updatedProduct)) {
-                    showAlert("Product updated successfully!", Alert.AlertType.INFORMATION);
-                    loadProducts(null);
-                } else {
-                    showAlert("Failed to update product!", Alert.AlertType.ERROR);
+                // stock is only written when it was edited, so sales made meanwhile are not undone
+                UpdateResult result = updatedProduct.getStockQuantity() == loadedStock
+                    ? productDAO.updateProductDetails(updatedProduct)
+                    : productDAO.updateProduct(updatedProduct, loadedStock);
+                switch (result) {
+                    case UPDATED -> {
+                        showAlert("Product updated successfully!", Alert.AlertType.INFORMATION);
+                        loadProducts(null);
+                    }
+                    case CONFLICT -> {
+                        showAlert("This product was changed by someone else while you were editing it. " +
+                                  "The list has been reloaded; please make your changes again.", Alert.AlertType.WARNING);
+                        loadProducts(null);
+                    }
+                    case NOT_FOUND -> {
+                        showAlert("This product no longer exists.", Alert.AlertType.WARNING);
+                        loadProducts(null);
+                    }
+                    default -> showAlert("Failed to update product!", Alert.AlertType.ERROR);
                 }
             } catch (Exception ex) {
                 showAlert("Invalid input: " + ex.getMessage(), Alert.AlertType.ERROR);
@@ -180,15 +212,36 @@ public class InventoryFormController {
     }
 
     private void loadProducts(String search) {
+        int seq = ++loadSeq;
+        if (search != null && !search.isEmpty()) {
+            searchProducts(search, seq);
+            return;
+        }
         try {
-            productTable.getItems().clear();
-            List<Product> products = (search == null || search.isEmpty()) ? productDAO.getAllProducts() : productDAO.searchProducts(search);
-            productTable.getItems().addAll(products);
+            productTable.getItems().setAll(productDAO.getAllProducts());
         } catch (Exception ex) {
             Logger.error("Failed to load products", ex);
         }
     }
 
+    // matches from the index, then their rows in one query; shown only if no newer load started meanwhile
+    private void searchProducts(String search, int seq) {
+        AsyncDAO.getInstance().products(dao -> {
+            List<Integer> ids = new ArrayList<>();
+            for (ProductSearchIndex.Match m : ProductSearchIndex.getInstance().search(search, SEARCH_RESULTS)) {
+                ids.add(m.getProductId());
+            }
+            return dao.getProductsByIds(ids);
+        }).whenComplete((products, ex) -> Platform.runLater(() -> {
+            if (seq != loadSeq) return;
+            if (ex != null) {
+                Logger.error("Failed to search products", ex);
+                return;
+            }
+            productTable.getItems().setAll(products);
+        }));
+    }
+
     private void exportAllProducts() {
         FileChooser chooser = new FileChooser();
         chooser.setInitialFileName("products.xls");
@@ -204,6 +257,45 @@ public class InventoryFormController {
         }
     }
 
+    private void importProducts() {
+        if (!utils.SessionManager.isAdmin()) {
+            showAlert("Only Admin can import products.", Alert.AlertType.WARNING);
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV or Excel XML", "*.csv", "*.xls", "*.xml"));
+        File file = chooser.showOpenDialog(productTable.getScene().getWindow());
+        if (file == null) return;
+        importButton.setDisable(true);
+        // large files take a while, so the import runs off the FX thread
+        AsyncDAO.getInstance().supply(() -> {
+            try {
+                return new ProductImportService().importFile(file.toPath());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }).whenComplete((result, ex) -> Platform.runLater(() -> {
+            importButton.setDisable(false);
+            if (ex != null) {
+                Logger.error("Product import failed", ex);
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                showAlert("Import failed: " + cause.getMessage(), Alert.AlertType.ERROR);
+                return;
+            }
+            StringBuilder msg = new StringBuilder("Imported " + result.getImported() + " of " + result.getRowsRead() + " rows.");
+            if (result.getKeptCells() > 0) {
+                msg.append("\n").append(result.getKeptCells()).append(" empty stock/threshold cells left existing values unchanged.");
+            }
+            if (result.getErrorCount() > 0) {
+                msg.append("\n").append(result.getErrorCount()).append(" rows rejected:");
+                result.getErrors().stream().limit(10).forEach(err -> msg.append("\n").append(err));
+                if (result.getErrorCount() > 10) msg.append("\n...");
+            }
+            showAlert(msg.toString(), result.getErrorCount() > 0 ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION);
+            loadProducts(null);
+        }));
+    }
+
     private File ensureXlsExtension(File file) {
         String ext = ".xls";
         if (!file.getName().toLowerCase().endsWith(ext)) {
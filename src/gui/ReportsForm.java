@@ -2,7 +2,9 @@
 package gui;
 
 import dao.SaleDAO;
+import dao.SalesRollupDAO;
 import models.Sale;
+import models.SalesTotals;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -25,6 +27,7 @@ import utils.Logger;
 
 public class ReportsForm extends Application {
     private final SaleDAO saleDAO = new SaleDAO();
+    private final SalesRollupDAO rollupDAO = new SalesRollupDAO();
     private TableView<Sale> reportTable;
     private ObservableList<Sale> reportData;
     private Label totalLabel;
@@ -219,26 +222,20 @@ public class ReportsForm extends Application {
             utils.Logger.info("Reports.loadRange: type=" + type + " start=" + start + " end=" + now + " -> fetched=" + (sales == null ? 0 : sales.size()));
         } catch (Exception ignored) {}
 
-        double total = 0;
-        int totalItems = 0;
-        if (sales != null) {
-            for (Sale s : sales) {
-                reportData.add(s);
-                total += s.getTotalPrice();
-                totalItems += s.getQuantity();
-            }
-        }
-        totalLabel.setText("Total: " + String.format("%.2f", total));
-        totalCardValue.setText(String.format("%.2f", total));
-        totalItemsLabel.setText("Items: " + totalItems);
-        itemsCardValue.setText(String.valueOf(totalItems));
+        if (sales != null) reportData.addAll(sales);
+        // totals come from the daily rollup rather than aggregating sale rows
+        SalesTotals totals = rollupDAO.getTotals(Date.valueOf(start), Date.valueOf(now));
+        totalLabel.setText("Total: " + String.format("%.2f", totals.getRevenue()));
+        totalCardValue.setText(String.format("%.2f", totals.getRevenue()));
+        totalItemsLabel.setText("Items: " + totals.getQuantity());
+        itemsCardValue.setText(String.valueOf(totals.getQuantity()));
 
         // show status if no data; also provide DB diagnostics when empty
-        List<Sale> all = saleDAO.getAllSales();
-        try {
-            utils.Logger.info("Reports.loadRange: DB total sales=" + (all == null ? 0 : all.size()));
-        } catch (Exception ignored) {}
         if (reportData.isEmpty()) {
+            List<Sale> all = saleDAO.getAllSales();
+            try {
+                utils.Logger.info("Reports.loadRange: DB total sales=" + (all == null ? 0 : all.size()));
+            } catch (Exception ignored) {}
             if (all == null || all.isEmpty()) {
                 statusLabel.setText("No sales found for the selected range — database contains zero sales.");
             } else {
@@ -261,8 +258,7 @@ public class ReportsForm extends Application {
         } else {
             statusLabel.setVisible(false);
         }
-        int days = type.equals("Daily") ? 1 : type.equals("Weekly") ? 7 : 30;
-        Map<String,Integer> top = saleDAO.getTopSellingProducts(1, days);
+        Map<String,Integer> top = rollupDAO.getTopSellingProducts(1, Date.valueOf(start), Date.valueOf(now));
         String txt = top == null || top.isEmpty() ? "-" : top.entrySet().iterator().next().getKey() + " (" + top.entrySet().iterator().next().getValue() + ")";
         topSellingLabel.setText("Top selling: " + txt);
         topCardValue.setText(txt);
@@ -281,7 +277,7 @@ public class ReportsForm extends Application {
         File file = chooser.showSaveDialog(reportTable.getScene().getWindow());
         if (file != null) {
             try {
-                utils.ExportUtils.exportSalesToCSV(saleDAO.getAllSales(), ensureExtension(file, ".csv"));
+                utils.ExportUtils.exportSalesToCSV(saleDAO::streamSales, ensureExtension(file, ".csv"));
                 showAlert("Exported successfully.", Alert.AlertType.INFORMATION);
             } catch (Exception ex) {
                 showAlert("Export failed: " + ex.getMessage(), Alert.AlertType.ERROR);
@@ -1,12 +1,14 @@
 package gui;
 
 import dao.SaleDAO;
+import dao.SalesRollupDAO;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import models.Sale;
+import models.SalesTotals;
 
 import java.time.LocalDate;
 import java.sql.Date;
@@ -34,6 +36,7 @@ public class ReportsFormController {
     @FXML private TableColumn<Sale,String> dateCol;
 
     private final SaleDAO saleDAO = new SaleDAO();
+    private final SalesRollupDAO rollupDAO = new SalesRollupDAO();
     @SuppressWarnings("unused")
     private final SaleDAO unusedSaleDAO = saleDAO;
 
@@ -70,17 +73,12 @@ public class ReportsFormController {
             default -> now;
         };
         List<Sale> sales = saleDAO.getSalesByDateRange(Date.valueOf(start), Date.valueOf(now));
-        double total = 0; int items = 0;
-        if (sales != null) {
-            for (Sale s : sales) {
-                reportTable.getItems().add(s);
-                total += s.getTotalPrice();
-                items += s.getQuantity();
-            }
-        }
-        totalCardValueLabel.setText(String.format("%.2f", total));
-        itemsCardValueLabel.setText(String.valueOf(items));
-        Map<String,Integer> top = saleDAO.getTopSellingProducts(1, type.equals("Daily")?1:type.equals("Weekly")?7:30);
+        if (sales != null) reportTable.getItems().addAll(sales);
+        // summary cards come from the daily rollup rather than aggregating sale rows
+        SalesTotals totals = rollupDAO.getTotals(Date.valueOf(start), Date.valueOf(now));
+        totalCardValueLabel.setText(String.format("%.2f", totals.getRevenue()));
+        itemsCardValueLabel.setText(String.valueOf(totals.getQuantity()));
+        Map<String,Integer> top = rollupDAO.getTopSellingProducts(1, Date.valueOf(start), Date.valueOf(now));
         String txt = "-";
         if (top != null && !top.isEmpty()) { var e = top.entrySet().iterator().next(); txt = e.getKey() + " (" + e.getValue() + ")"; }
         topCardValueLabel.setText(txt);
@@ -94,7 +92,7 @@ public class ReportsFormController {
             chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
             java.io.File f = chooser.showSaveDialog(reportTable.getScene().getWindow());
             if (f != null) {
-                utils.ExportUtils.exportSalesToCSV(saleDAO.getAllSales(), f);
+                utils.ExportUtils.exportSalesToCSV(saleDAO::streamSales, f);
                 showAlert("Exported successfully.", Alert.AlertType.INFORMATION);
             }
         } catch (Exception ex) {
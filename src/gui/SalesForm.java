@@ -3,7 +3,9 @@ package gui;
 
 import dao.ProductDAO;
 import dao.SaleDAO;
+import models.CheckoutResult;
 import models.Product;
+import models.ProductSummary;
 import models.Sale;
 import utils.ExportUtils;
 import utils.SessionManager;
@@ -40,6 +42,9 @@ public class SalesForm extends Application {
     private Label totalPriceLabel;
     private TableView<Sale> historyTable;
     private ObservableList<Sale> historyData;
+    private ListView<String> cartList;
+    private Label cartTotalLabel;
+    private final List<Sale> cart = new ArrayList<>(); // lines shown in cartList, sold together by checkout()
 
     @Override
     public void start(Stage primaryStage) {
@@ -77,8 +82,8 @@ public class SalesForm extends Application {
 
         record.add(new Label("Product:"), 0, 0);
         productCombo = new ComboBox<>();
-        for (Product p : productDAO.getAllProducts()) {
-            productCombo.getItems().add(p.getProductId() + " - " + p.getProductName());
+        for (ProductSummary p : productDAO.getProductSummaries()) {
+            productCombo.getItems().add(p.toString());
         }
         if (!productCombo.getItems().isEmpty()) {
             productCombo.getSelectionModel().select(0);
@@ -106,10 +111,15 @@ public class SalesForm extends Application {
         GuiUtils.stylePrimary(submit);
         record.add(submit, 0, 4, 2, 1);
 
+        Button addToCart = new Button("Add to Cart");
+        addToCart.setOnAction(e -> addToCart());
+        GuiUtils.styleSecondary(addToCart);
+        record.add(addToCart, 0, 5, 2, 1);
+
         Button refresh = new Button("Refresh Prices");
         refresh.setOnAction(e -> updatePrice());
         GuiUtils.styleSecondary(refresh);
-        record.add(refresh, 0, 5, 2, 1);
+        record.add(refresh, 0, 6, 2, 1);
 
         Button exportExcelBtn = new Button("Export Excel History");
         exportExcelBtn.setOnAction(e -> exportHistoryExcel());
@@ -117,6 +127,24 @@ public class SalesForm extends Application {
         center.getChildren().add(exportExcelBtn);
         center.getChildren().add(record);
 
+        // Cart panel
+        cartList = new ListView<>();
+        cartList.setPrefHeight(180);
+        cartTotalLabel = new Label("Cart total: 0.00");
+        cartTotalLabel.setStyle("-fx-font-weight:bold;");
+        Button checkout = new Button("Checkout");
+        checkout.setOnAction(e -> checkout());
+        GuiUtils.stylePrimary(checkout);
+        Button clearCart = new Button("Clear Cart");
+        clearCart.setOnAction(e -> clearCart());
+        GuiUtils.styleSecondary(clearCart);
+        Label cartTitle = new Label("Cart");
+        cartTitle.setStyle("-fx-font-size:16px; -fx-font-weight:bold;");
+        VBox cartBox = new VBox(8, cartTitle, cartList, cartTotalLabel, new HBox(8, checkout, clearCart));
+        cartBox.setPadding(new Insets(12));
+        GuiUtils.styleCard(cartBox);
+        center.getChildren().add(cartBox);
+
         // History table
         historyTable = new TableView<>();
         historyData = FXCollections.observableArrayList();
@@ -267,6 +295,57 @@ public class SalesForm extends Application {
         }
     }
 
+    private void addToCart() {
+        if (productCombo.getValue() == null) { showAlert("Select a product", Alert.AlertType.WARNING); return; }
+        try {
+            int productId = Integer.parseInt(productCombo.getValue().split(" - ")[0]);
+            Product p = productDAO.getProductById(productId);
+            if (p == null) { showAlert("Invalid product", Alert.AlertType.ERROR); return; }
+            int qty = qtySpinner.getValue();
+            Sale line = new Sale(productId, p.getProductName(), qty, p.getSellingPrice(),
+                    SessionManager.getCurrentUser() != null ? SessionManager.getCurrentUser().getUserId() : 0);
+            cart.add(line);
+            cartList.getItems().add(String.format("%s x%d  %.2f", line.getProductName(), qty, line.getTotalPrice()));
+            updateCartTotal();
+        } catch (Exception ex) {
+            showAlert(ex.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    // sells the whole cart in one transaction; nothing is sold if any line cannot be
+    private void checkout() {
+        if (cart.isEmpty()) { showAlert("The cart is empty.", Alert.AlertType.WARNING); return; }
+        CheckoutResult result = saleDAO.checkout(new ArrayList<>(cart));
+        switch (result.getStatus()) {
+            case COMPLETED -> {
+                showAlert("Sold " + cart.size() + " line(s) (sale IDs: " + result.getSaleIds() + ")", Alert.AlertType.INFORMATION);
+                clearCart();
+                loadHistory();
+            }
+            case INSUFFICIENT_STOCK -> {
+                Product p = productDAO.getProductById(result.getProductId());
+                String name = p != null ? p.getProductName() : "product " + result.getProductId();
+                showAlert("Not enough stock of " + name + " (" + result.getAvailable() + " left). Nothing was sold.",
+                        Alert.AlertType.ERROR);
+            }
+            case NOT_FOUND -> showAlert("A product in the cart no longer exists. Nothing was sold.", Alert.AlertType.ERROR);
+            case INVALID_QUANTITY -> showAlert("Every cart line needs a quantity above zero.", Alert.AlertType.ERROR);
+            default -> showAlert("Checkout failed. Nothing was sold.", Alert.AlertType.ERROR);
+        }
+    }
+
+    private void clearCart() {
+        cart.clear();
+        cartList.getItems().clear();
+        updateCartTotal();
+    }
+
+    private void updateCartTotal() {
+        double total = 0;
+        for (Sale line : cart) total += line.getTotalPrice();
+        cartTotalLabel.setText(String.format("Cart total: %.2f", total));
+    }
+
     private void showReceiptDialog(String receiptText) {
         Dialog<Void> dialog = new Dialog<>();
         dialog.setTitle("Receipt");
@@ -321,7 +400,8 @@ public class SalesForm extends Application {
 
     private void loadHistory() {
         historyData.clear();
-        List<Sale> sales = saleDAO.getAllSales();
+        // newest page only; the FXML screen pages further with "Load more"
+        List<Sale> sales = saleDAO.getSalesPage(null, 0, 500);
         historyData.addAll(sales);
     }
 
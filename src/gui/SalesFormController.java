@@ -6,15 +6,22 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
+import models.CheckoutResult;
 import models.Product;
+import models.ProductSummary;
 import models.Sale;
+import services.ProductSearchIndex;
 import utils.Logger;
 import utils.SessionManager;
 import javafx.stage.FileChooser;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class SalesFormController {
+    private static final int HISTORY_PAGE_SIZE = 200;
+    private static final int PRODUCT_MATCHES = 20;
+
     @SuppressWarnings("unused") @FXML private VBox mainPanel;
     @SuppressWarnings("unused") @FXML private VBox sidebarPlaceholder;
 
@@ -23,8 +30,13 @@ public class SalesFormController {
     @FXML private Label unitPriceLabel;
     @FXML private Label totalPriceLabel;
     @FXML private Button recordBtn;
+    @FXML private Button addToCartBtn;
     @FXML private Button refreshBtn;
     @FXML private Button exportExcelBtn;
+    @FXML private ListView<String> cartList;
+    @FXML private Label cartTotalLabel;
+    @FXML private Button checkoutBtn;
+    @FXML private Button clearCartBtn;
 
     @FXML private TableView<Sale> historyTable;
     @FXML private TableColumn<Sale,Integer> colId;
@@ -36,9 +48,13 @@ public class SalesFormController {
     @FXML private TableColumn<Sale, Void> colPrint;
     @FXML private TableColumn<Sale, Void> colEdit;
     @FXML private TableColumn<Sale, Void> colDelete;
+    @FXML private Button loadMoreBtn;
 
     @SuppressWarnings("unused") private final ProductDAO productDAO = new ProductDAO();
     @SuppressWarnings("unused") private final SaleDAO saleDAO = new SaleDAO();
+    private Sale historyCursor; // oldest sale loaded so far; the next page starts after it
+    private boolean filteringProducts;
+    private final List<Sale> cart = new ArrayList<>(); // lines shown in cartList, sold together by checkout()
 
     @FXML
     public void initialize() {
@@ -50,21 +66,27 @@ public class SalesFormController {
 
         // populate product combo
         try {
-            List<Product> products = productDAO.getAllProducts();
-            for (Product p : products) {
-                productCombo.getItems().add(p.getProductId() + " - " + p.getProductName());
+            for (ProductSummary p : productDAO.getProductSummaries()) {
+                productCombo.getItems().add(p.toString());
             }
             if (!productCombo.getItems().isEmpty()) productCombo.getSelectionModel().select(0);
         } catch (Exception ex) {
             Logger.error("Failed to load products for sales combo", ex);
         }
 
+        // typing narrows the combo to the best matches from the in-memory product index
+        productCombo.setEditable(true);
+        productCombo.getEditor().textProperty().addListener((obs, oldText, text) -> filterProducts(text));
         productCombo.setOnAction(e -> updatePrice());
         qtySpinner.valueProperty().addListener((obs, oldV, newV) -> updatePrice());
 
         recordBtn.setOnAction(e -> recordSale());
+        addToCartBtn.setOnAction(e -> addToCart());
+        checkoutBtn.setOnAction(e -> checkout());
+        clearCartBtn.setOnAction(e -> clearCart());
         refreshBtn.setOnAction(e -> updatePrice());
         exportExcelBtn.setOnAction(e -> exportHistoryExcel());
+        loadMoreBtn.setOnAction(e -> loadMoreHistory());
 
         // setup history table columns
         colId.setCellValueFactory(new PropertyValueFactory<>("saleId"));
@@ -77,15 +99,44 @@ public class SalesFormController {
         loadHistory();
     }
 
+    private void filterProducts(String text) {
+        // choosing an item puts its "id - name" in the editor, which is not a new search
+        if (filteringProducts || text == null || text.isBlank() || productCombo.getItems().contains(text)) return;
+        filteringProducts = true;
+        try {
+            List<String> items = new ArrayList<>();
+            for (ProductSearchIndex.Match m : ProductSearchIndex.getInstance().search(text, PRODUCT_MATCHES)) {
+                items.add(m.toString());
+            }
+            productCombo.getItems().setAll(items);
+            // replacing the items can clear the editor
+            productCombo.getEditor().setText(text);
+            productCombo.getEditor().positionCaret(text.length());
+            if (!items.isEmpty()) productCombo.show();
+        } finally {
+            filteringProducts = false;
+        }
+    }
+
+    // product id of the chosen "id - name" item, or null while the combo holds partly typed text
+    private Integer selectedProductId() {
+        String val = productCombo.getValue();
+        if (val == null) return null;
+        try {
+            return Integer.parseInt(val.split(" - ")[0].trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
     private void updatePrice() {
         try {
-            String val = productCombo.getValue();
-            if (val == null) {
+            Integer productId = selectedProductId();
+            if (productId == null) {
                 unitPriceLabel.setText("0.00");
                 totalPriceLabel.setText("0.00");
                 return;
             }
-            int productId = Integer.parseInt(val.split(" - ")[0]);
             Product p = productDAO.getProductById(productId);
             if (p == null) return;
             double price = p.getSellingPrice();
@@ -99,9 +150,8 @@ public class SalesFormController {
 
     private void recordSale() {
         try {
-            String val = productCombo.getValue();
-            if (val == null) { showAlert("Select a product", Alert.AlertType.WARNING); return; }
-            int productId = Integer.parseInt(val.split(" - ")[0]);
+            Integer productId = selectedProductId();
+            if (productId == null) { showAlert("Select a product", Alert.AlertType.WARNING); return; }
             Product p = productDAO.getProductById(productId);
             int qty = qtySpinner.getValue();
             if (p == null) { showAlert("Invalid product", Alert.AlertType.ERROR); return; }
@@ -121,10 +171,73 @@ public class SalesFormController {
         }
     }
 
+    private void addToCart() {
+        Integer productId = selectedProductId();
+        if (productId == null) { showAlert("Select a product", Alert.AlertType.WARNING); return; }
+        Product p = productDAO.getProductById(productId);
+        if (p == null) { showAlert("Invalid product", Alert.AlertType.ERROR); return; }
+        int qty = qtySpinner.getValue();
+        Sale line = new Sale(productId, p.getProductName(), qty, p.getSellingPrice(),
+                SessionManager.getCurrentUser() != null ? SessionManager.getCurrentUser().getUserId() : 0);
+        cart.add(line);
+        cartList.getItems().add(String.format("%s x%d  %.2f", line.getProductName(), qty, line.getTotalPrice()));
+        updateCartTotal();
+    }
+
+    // sells the whole cart in one transaction; nothing is sold if any line cannot be
+    private void checkout() {
+        if (cart.isEmpty()) { showAlert("The cart is empty.", Alert.AlertType.WARNING); return; }
+        try {
+            CheckoutResult result = saleDAO.checkout(new ArrayList<>(cart));
+            switch (result.getStatus()) {
+                case COMPLETED -> {
+                    showAlert("Sold " + cart.size() + " line(s) (sale IDs: " + result.getSaleIds() + ")", Alert.AlertType.INFORMATION);
+                    clearCart();
+                    loadHistory();
+                }
+                case INSUFFICIENT_STOCK -> {
+                    Product p = productDAO.getProductById(result.getProductId());
+                    String name = p != null ? p.getProductName() : "product " + result.getProductId();
+                    showAlert("Not enough stock of " + name + " (" + result.getAvailable() + " left). Nothing was sold.",
+                            Alert.AlertType.ERROR);
+                }
+                case NOT_FOUND -> showAlert("A product in the cart no longer exists. Nothing was sold.", Alert.AlertType.ERROR);
+                case INVALID_QUANTITY -> showAlert("Every cart line needs a quantity above zero.", Alert.AlertType.ERROR);
+                default -> showAlert("Checkout failed. Nothing was sold.", Alert.AlertType.ERROR);
+            }
+        } catch (Exception ex) {
+            Logger.error("Failed to check out cart", ex);
+            showAlert(ex.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
+
+    private void clearCart() {
+        cart.clear();
+        cartList.getItems().clear();
+        updateCartTotal();
+    }
+
+    private void updateCartTotal() {
+        double total = 0;
+        for (Sale line : cart) total += line.getTotalPrice();
+        cartTotalLabel.setText(String.format("Cart total: %.2f", total));
+    }
+
     private void loadHistory() {
+        historyTable.getItems().clear();
+        historyCursor = null;
+        loadMoreHistory();
+    }
+
+    // next page of history, newest first; keyset paging so later pages cost the same as the first
+    private void loadMoreHistory() {
         try {
-            historyTable.getItems().clear();
-            historyTable.getItems().addAll(saleDAO.getAllSales());
+            List<Sale> page = historyCursor == null
+                    ? saleDAO.getSalesPage(null, 0, HISTORY_PAGE_SIZE)
+                    : saleDAO.getSalesPage(historyCursor.getSaleDate(), historyCursor.getSaleId(), HISTORY_PAGE_SIZE);
+            historyTable.getItems().addAll(page);
+            if (!page.isEmpty()) historyCursor = page.get(page.size() - 1);
+            loadMoreBtn.setDisable(page.size() < HISTORY_PAGE_SIZE);
         } catch (Exception ex) {
             Logger.error("Failed to load sales history", ex);
         }
@@ -137,7 +250,7 @@ public class SalesFormController {
             chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Excel Files", "*.xls", "*.xlsx"));
             java.io.File file = chooser.showSaveDialog(historyTable.getScene().getWindow());
             if (file != null) {
-                utils.ExcelExportUtils.exportSalesToExcel(saleDAO.getAllSales(), file);
+                utils.ExcelExportUtils.exportSalesToExcel(saleDAO::streamSales, file);
                 showAlert("Exported successfully.", Alert.AlertType.INFORMATION);
             }
         } catch (Exception ex) {
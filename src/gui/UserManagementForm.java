@@ -3,6 +3,7 @@ package gui;
 
 import dao.UserDAO;
 import models.User;
+import models.UserSummary;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -21,8 +22,8 @@ import utils.Logger;
 @SuppressWarnings("unchecked")
 public class UserManagementForm extends Application {
     private final UserDAO userDAO = new UserDAO();
-    private TableView<User> userTable;
-    private ObservableList<User> userData;
+    private TableView<UserSummary> userTable;
+    private ObservableList<UserSummary> userData;
 
     @Override
     public void start(Stage primaryStage) {
@@ -70,7 +71,7 @@ public class UserManagementForm extends Application {
                 showAlert("Only Admin can delete users.", Alert.AlertType.WARNING);
                 return;
             }
-            User selected = userTable.getSelectionModel().getSelectedItem();
+            UserSummary selected = userTable.getSelectionModel().getSelectedItem();
             if (selected == null) {
                 showAlert("Select a user to delete.", Alert.AlertType.WARNING);
                 return;
@@ -101,23 +102,23 @@ public class UserManagementForm extends Application {
 
         userTable = new TableView<>();
         userData = FXCollections.observableArrayList();
-        TableColumn<User, Integer> idCol = new TableColumn<>("ID");
+        TableColumn<UserSummary, Integer> idCol = new TableColumn<>("ID");
         idCol.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("userId"));
-        TableColumn<User, String> usernameCol = new TableColumn<>("Username");
+        TableColumn<UserSummary, String> usernameCol = new TableColumn<>("Username");
         usernameCol.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("username"));
-        TableColumn<User, String> fullNameCol = new TableColumn<>("Full Name");
+        TableColumn<UserSummary, String> fullNameCol = new TableColumn<>("Full Name");
         fullNameCol.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("fullName"));
-        TableColumn<User, String> roleCol = new TableColumn<>("Role");
+        TableColumn<UserSummary, String> roleCol = new TableColumn<>("Role");
         roleCol.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("role"));
         userTable.getColumns().addAll(idCol, usernameCol, fullNameCol, roleCol);
         userTable.setItems(userData);
         userTable.setPrefHeight(500);
         userTable.setRowFactory(tv -> {
-            TableRow<User> row = new TableRow<>();
+            TableRow<UserSummary> row = new TableRow<>();
             row.setOnMouseClicked(event -> {
                 if (event.getClickCount() == 2 && (!row.isEmpty())) {
                     if (utils.SessionManager.isAdmin()) {
-                        showEditDialog(row.getItem());
+                        showEditDialog(row.getItem().toUser());
                     } else {
                         showAlert("Only Admin can edit users.", Alert.AlertType.WARNING);
                     }
@@ -147,7 +148,7 @@ public class UserManagementForm extends Application {
 
     private void loadUsers() {
         userData.clear();
-        userData.addAll(userDAO.getAllUsers());
+        userData.addAll(userDAO.getUserSummaries());
     }
 
     public void showAddDialog() {
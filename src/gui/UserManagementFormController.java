@@ -5,7 +5,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.VBox;
-import models.User;
+import models.UserSummary;
 import utils.Logger;
 
 import java.util.List;
@@ -14,11 +14,11 @@ public class UserManagementFormController {
     @SuppressWarnings("unused") @FXML private VBox mainPanel;
     @SuppressWarnings("unused") @FXML private VBox sidebarPlaceholder;
 
-    @FXML private TableView<User> userTable;
-    @FXML private TableColumn<User,Integer> idCol;
-    @FXML private TableColumn<User,String> usernameCol;
-    @FXML private TableColumn<User,String> fullNameCol;
-    @FXML private TableColumn<User,String> roleCol;
+    @FXML private TableView<UserSummary> userTable;
+    @FXML private TableColumn<UserSummary,Integer> idCol;
+    @FXML private TableColumn<UserSummary,String> usernameCol;
+    @FXML private TableColumn<UserSummary,String> fullNameCol;
+    @FXML private TableColumn<UserSummary,String> roleCol;
     @FXML private Button addBtn;
     @FXML private Button deleteBtn;
 
@@ -45,7 +45,7 @@ public class UserManagementFormController {
     private void loadUsers() {
         try {
             userTable.getItems().clear();
-            List<User> users = userDAO.getAllUsers();
+            List<UserSummary> users = userDAO.getUserSummaries();
             userTable.getItems().addAll(users);
         } catch (Exception ex) {
             Logger.error("Failed to load users", ex);
@@ -53,7 +53,7 @@ public class UserManagementFormController {
     }
 
     private void deleteSelectedUser() {
-        User selected = userTable.getSelectionModel().getSelectedItem();
+        UserSummary selected = userTable.getSelectionModel().getSelectedItem();
         if (selected == null) { showAlert("Select a user to delete.", Alert.AlertType.WARNING); return; }
         if (!utils.SessionManager.isAdmin()) { showAlert("Only Admin can delete users.", Alert.AlertType.WARNING); return; }
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
@@ -0,0 +1,78 @@
+package models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checkout Result Model Class
+ * Outcome of selling a whole cart in one transaction
+ */
+public class CheckoutResult {
+
+    public enum Status {
+        COMPLETED,          // every line was sold and committed
+        EMPTY_CART,         // nothing to sell
+        INVALID_QUANTITY,   // a line asked for zero or fewer items; nothing was sold
+        NOT_FOUND,          // a line's product does not exist; nothing was sold
+        INSUFFICIENT_STOCK, // the cart needs more of a product than is in stock; nothing was sold
+        FAILED              // database error, already logged; nothing was sold
+    }
+
+    private final Status status;
+    private final List<Integer> saleIds;
+    private final int productId;
+    private final int available;
+
+    private CheckoutResult(Status status, List<Integer> saleIds, int productId, int available) {
+        this.status = status;
+        this.saleIds = saleIds;
+        this.productId = productId;
+        this.available = available;
+    }
+
+    /**
+     * The cart was sold; one sale id per cart line, in cart order
+     */
+    public static CheckoutResult completed(List<Integer> saleIds) {
+        return new CheckoutResult(Status.COMPLETED, Collections.unmodifiableList(saleIds), 0, 0);
+    }
+
+    /**
+     * Nothing was sold because of the given product (0 when no single product is to blame)
+     */
+    public static CheckoutResult rejected(Status status, int productId, int available) {
+        return new CheckoutResult(status, Collections.emptyList(), productId, available);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isCompleted() {
+        return status == Status.COMPLETED;
+    }
+
+    public List<Integer> getSaleIds() {
+        return saleIds;
+    }
+
+    /**
+     * The product that stopped the checkout, or 0
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Stock of that product when the checkout was rejected for INSUFFICIENT_STOCK
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    @Override
+    public String toString() {
+        return "CheckoutResult{status=" + status + ", saleIds=" + saleIds + ", productId=" + productId +
+                ", available=" + available + "}";
+    }
+}
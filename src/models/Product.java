@@ -19,6 +19,7 @@ public class Product {
     private String imagePath;
     private Timestamp createdAt;
     private Timestamp updatedAt;
+    private int version;
 
     // Constructors
     public Product() {
@@ -34,6 +35,21 @@ public class Product {
         this.expiryDate = expiryDate;
     }
 
+    // Copy constructor
+    public Product(Product other) {
+        this.productId = other.productId;
+        this.productName = other.productName;
+        this.buyingPrice = other.buyingPrice;
+        this.sellingPrice = other.sellingPrice;
+        this.stockQuantity = other.stockQuantity;
+        this.thresholdValue = other.thresholdValue;
+        this.expiryDate = other.expiryDate;
+        this.imagePath = other.imagePath;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.version = other.version;
+    }
+
     // Getters and Setters
     public int getProductId() {
         return productId;
@@ -115,6 +131,15 @@ public class Product {
         this.updatedAt = updatedAt;
     }
 
+    // Bumped by every edit of the descriptive fields (not by stock changes)
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     // Business logic methods
     public boolean isLowStock() {
         return stockQuantity <= thresholdValue;
@@ -0,0 +1,29 @@
+package models;
+
+/**
+ * Product Summary Model Class
+ * Just a product's id and name, for pickers that list every product
+ */
+public class ProductSummary {
+    private final int productId;
+    private final String productName;
+
+    public ProductSummary(int productId, String productName) {
+        this.productId = productId;
+        this.productName = productName;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    // the "id - name" form the product combos show and parse
+    @Override
+    public String toString() {
+        return productId + " - " + productName;
+    }
+}
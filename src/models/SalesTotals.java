@@ -0,0 +1,34 @@
+package models;
+
+/**
+ * Sales Totals Model Class
+ * Aggregated quantity, revenue and number of sales over a date range
+ */
+public class SalesTotals {
+    private final int quantity;
+    private final double revenue;
+    private final int saleCount;
+
+    public SalesTotals(int quantity, double revenue, int saleCount) {
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.saleCount = saleCount;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public int getSaleCount() {
+        return saleCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SalesTotals{quantity=" + quantity + ", revenue=" + revenue + ", saleCount=" + saleCount + "}";
+    }
+}
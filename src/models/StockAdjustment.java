@@ -0,0 +1,62 @@
+package models;
+
+/**
+ * Stock Adjustment Model Class
+ * Outcome of one product's stock change in a bulk adjustment
+ */
+public class StockAdjustment {
+
+    public enum Status {
+        APPLIED,            // the change was committed
+        NOT_FOUND,          // no such product; the whole batch was rolled back
+        INSUFFICIENT_STOCK, // stock would have gone negative; the whole batch was rolled back
+        REJECTED            // this change was valid, but another one in the batch was not
+    }
+
+    private final int productId;
+    private final int delta;
+    private final int stockBefore;
+    private final int stockAfter;
+    private final Status status;
+
+    public StockAdjustment(int productId, int delta, int stockBefore, int stockAfter, Status status) {
+        this.productId = productId;
+        this.delta = delta;
+        this.stockBefore = stockBefore;
+        this.stockAfter = stockAfter;
+        this.status = status;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public int getStockBefore() {
+        return stockBefore;
+    }
+
+    /**
+     * Stock after the change (as it would have been, unless status is APPLIED)
+     */
+    public int getStockAfter() {
+        return stockAfter;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+
+    @Override
+    public String toString() {
+        return "StockAdjustment{productId=" + productId + ", delta=" + delta + ", stockBefore=" + stockBefore +
+                ", stockAfter=" + stockAfter + ", status=" + status + "}";
+    }
+}
@@ -0,0 +1,16 @@
+package models;
+
+/**
+ * Update Result Enum
+ * Outcome of a compare-and-set product update
+ */
+public enum UpdateResult {
+    UPDATED,   // the row matched the expected version (and stock) and was changed
+    CONFLICT,  // someone else changed the product since it was loaded; nothing was written
+    NOT_FOUND, // the product no longer exists
+    FAILED;    // database error, already logged
+
+    public boolean isUpdated() {
+        return this == UPDATED;
+    }
+}
@@ -0,0 +1,47 @@
+package models;
+
+/**
+ * User Summary Model Class
+ * The columns the user grid shows; read without the password hash or timestamps
+ */
+public class UserSummary {
+    private final int userId;
+    private final String username;
+    private final String fullName;
+    private final String role;
+
+    public UserSummary(int userId, String username, String fullName, String role) {
+        this.userId = userId;
+        this.username = username;
+        this.fullName = fullName;
+        this.role = role;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * A User to edit from the grid; the password is left empty so updateUser keeps the stored one
+     */
+    public User toUser() {
+        return new User(userId, username, null, fullName, role, null);
+    }
+
+    @Override
+    public String toString() {
+        return "UserSummary{userId=" + userId + ", username='" + username + "', role='" + role + "'}";
+    }
+}
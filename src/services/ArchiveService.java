@@ -0,0 +1,529 @@
+package services;
+
+import config.DatabaseConfig;
+import database.DatabaseConnection;
+import database.SalesPartitionManager;
+import database.Transaction;
+import models.Request;
+import models.Sale;
+import utils.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive Service
+ * Retention for sales and closed (Approved / Rejected) requests. Each month older than the
+ * retention period is exported to a gzip CSV file under ARCHIVE_DIR with a SHA-256 sidecar
+ * (sales-2023-04.csv.gz + sales-2023-04.csv.gz.sha256, the format sha256sum -c reads),
+ * read back and verified, and only then deleted from the database in chunks of
+ * ARCHIVE_DELETE_CHUNK_SIZE rows, each in its own short transaction.
+ * Archived months can be read back as models or restored into their table.
+ * sales_daily_rollup rows are kept, so reports still cover archived months.
+ */
+public class ArchiveService {
+
+    /**
+     * Tables that can be archived
+     */
+    public enum Table {
+        SALES("sales", "sale_id", "sale_date", null),
+        REQUESTS("requests", "request_id", "request_date", "status <> 'Pending'");
+
+        private final String name;
+        private final String idColumn;
+        private final String dateColumn;
+        private final String filter;
+
+        Table(String name, String idColumn, String dateColumn, String filter) {
+            this.name = name;
+            this.idColumn = idColumn;
+            this.dateColumn = dateColumn;
+            this.filter = filter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // rows of one month: dateColumn >= ? AND dateColumn < ? (plus the table's filter)
+        private String monthCondition() {
+            String cond = dateColumn + " >= ? AND " + dateColumn + " < ?";
+            return filter == null ? cond : cond + " AND " + filter;
+        }
+    }
+
+    private static final String NULL = "\\N"; // same marker MySQL uses in LOAD DATA / SELECT INTO OUTFILE
+
+    private final Path dir;
+
+    public ArchiveService() {
+        this(Paths.get(DatabaseConfig.ARCHIVE_DIR));
+    }
+
+    public ArchiveService(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Archive and purge everything past the configured retention periods
+     * @return rows archived per table
+     */
+    public Map<Table, Integer> runRetention() throws IOException, SQLException {
+        Map<Table, Integer> result = new LinkedHashMap<>();
+        YearMonth now = YearMonth.now();
+        result.put(Table.SALES, archiveBefore(Table.SALES, now.minusMonths(DatabaseConfig.SALES_RETENTION_MONTHS)));
+        result.put(Table.REQUESTS, archiveBefore(Table.REQUESTS, now.minusMonths(DatabaseConfig.REQUESTS_RETENTION_MONTHS)));
+        return result;
+    }
+
+    /**
+     * Archive and purge every month before the cutoff month, oldest first.
+     * Stops at the first month that fails, leaving it and later months in the database.
+     * @return number of rows archived
+     */
+    public int archiveBefore(Table table, YearMonth cutoff) throws IOException, SQLException {
+        int total = 0;
+        for (YearMonth month : monthsBefore(table, cutoff)) {
+            total += archiveMonth(table, month);
+        }
+        return total;
+    }
+
+    /**
+     * Export one month to a new archive file, verify it, then delete the exported rows
+     * @return number of rows archived
+     */
+    public int archiveMonth(Table table, YearMonth month) throws IOException, SQLException {
+        Files.createDirectories(dir);
+        Path file = newArchiveFile(table, month);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Export export;
+        try {
+            export = export(table, month, tmp);
+            if (export.rows == 0) {
+                Files.delete(tmp);
+                return 0;
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        Files.writeString(checksumFile(file), export.sha256 + "  " + file.getFileName() + "\n", StandardCharsets.US_ASCII);
+
+        // never delete rows whose copy cannot be read back
+        int verified = verify(file);
+        if (verified != export.rows) {
+            throw new IOException("Archive " + file + " holds " + verified + " rows, expected " + export.rows);
+        }
+        int deleted = purge(table, month, export);
+        Logger.info("Archived " + export.rows + " " + table.name + " rows of " + month + " to " + file + ", deleted " + deleted);
+        return export.rows;
+    }
+
+    /**
+     * Months that have archive files for a table, oldest first
+     */
+    public List<YearMonth> archivedMonths(Table table) throws IOException {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        if (!Files.isDirectory(dir)) return new ArrayList<>(months);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, table.name + "-*.csv.gz")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                months.add(YearMonth.parse(name.substring(table.name.length() + 1, table.name.length() + 8)));
+            }
+        }
+        return new ArrayList<>(months);
+    }
+
+    /**
+     * Read the archived sales of a month
+     */
+    public List<Sale> readArchivedSales(YearMonth month) throws IOException {
+        List<Sale> sales = new ArrayList<>();
+        read(Table.SALES, month, row -> {
+            Sale s = new Sale();
+            s.setSaleId(Integer.parseInt(row.get("sale_id")));
+            s.setProductId(Integer.parseInt(row.get("product_id")));
+            s.setProductName(row.get("product_name"));
+            s.setQuantity(Integer.parseInt(row.get("quantity")));
+            s.setUnitPrice(Double.parseDouble(row.get("unit_price")));
+            s.setTotalPrice(Double.parseDouble(row.get("total_price")));
+            s.setSaleDate(timestamp(row.get("sale_date")));
+            if (row.get("user_id") != null) s.setUserId(Integer.parseInt(row.get("user_id")));
+            sales.add(s);
+        });
+        return sales;
+    }
+
+    /**
+     * Read the archived requests of a month
+     */
+    public List<Request> readArchivedRequests(YearMonth month) throws IOException {
+        List<Request> requests = new ArrayList<>();
+        read(Table.REQUESTS, month, row -> {
+            Request r = new Request();
+            r.setRequestId(Integer.parseInt(row.get("request_id")));
+            r.setProductId(Integer.parseInt(row.get("product_id")));
+            r.setProductName(row.get("product_name"));
+            r.setRequestedQuantity(Integer.parseInt(row.get("requested_quantity")));
+            if (row.get("requested_by_user_id") != null) r.setRequestedByUserId(Integer.parseInt(row.get("requested_by_user_id")));
+            r.setRequestedByName(row.get("requested_by_name"));
+            r.setStatus(row.get("status"));
+            r.setRequestDate(timestamp(row.get("request_date")));
+            requests.add(r);
+        });
+        return requests;
+    }
+
+    /**
+     * Put an archived month back into its table. Rows already present are skipped (INSERT IGNORE).
+     * So are rows whose product has since been deleted, but only while the table has its foreign
+     * keys; once sales is partitioned (SalesPartitionManager) such sales rows come back as well.
+     * The archive files are kept.
+     * @return number of rows inserted
+     */
+    public int restore(Table table, YearMonth month) throws IOException, SQLException {
+        int inserted = 0;
+        for (Path file : archiveFiles(table, month)) {
+            verify(file);
+            try (BufferedReader in = open(file)) {
+                List<String> header = CsvRecord.read(in);
+                if (header == null) continue;
+                for (String column : header) {
+                    if (!column.matches("[A-Za-z0-9_]+")) throw new IOException("Bad column name in " + file + ": " + column);
+                }
+                String insert = "INSERT IGNORE INTO " + table.name + " (" + String.join(", ", header) + ") VALUES ";
+                List<List<String>> chunk = new ArrayList<>();
+                List<String> record;
+                while ((record = CsvRecord.read(in)) != null) {
+                    chunk.add(record);
+                    if (chunk.size() == DatabaseConfig.ARCHIVE_DELETE_CHUNK_SIZE) {
+                        inserted += insertChunk(insert, header.size(), chunk);
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) inserted += insertChunk(insert, header.size(), chunk);
+            }
+        }
+        Logger.info("Restored " + inserted + " " + table.name + " rows of " + month);
+        return inserted;
+    }
+
+    /**
+     * Check an archive file against its .sha256 sidecar and read it through
+     * @return number of data rows in the file
+     */
+    public int verify(Path file) throws IOException {
+        String expected = Files.readString(checksumFile(file), StandardCharsets.US_ASCII).trim().split("\\s+")[0];
+        MessageDigest digest = sha256();
+        int rows = 0;
+        try (InputStream raw = new DigestInputStream(Files.newInputStream(file), digest);
+             BufferedReader in = new BufferedReader(new InputStreamReader(new GZIPInputStream(raw), StandardCharsets.UTF_8))) {
+            if (CsvRecord.read(in) == null) throw new IOException("Archive " + file + " has no header");
+            while (CsvRecord.read(in) != null) rows++;
+            // drain any trailing bytes so the digest covers the whole file
+            raw.transferTo(OutputStream.nullOutputStream());
+        }
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (!actual.equalsIgnoreCase(expected)) {
+            throw new IOException("Checksum mismatch for " + file + ": expected " + expected + ", got " + actual);
+        }
+        return rows;
+    }
+
+    // ---- export / purge ----
+
+    private static final class Export {
+        int rows;
+        long maxId;
+        String sha256;
+    }
+
+    private Export export(Table table, YearMonth month, Path target) throws IOException, SQLException {
+        Export export = new Export();
+        MessageDigest digest = sha256();
+        String sql = "SELECT * FROM " + table.name + " WHERE " + table.monthCondition() + " ORDER BY " + table.idColumn;
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             // stream rows instead of loading the whole month into memory
+             PreparedStatement pstmt = DatabaseConnection.prepareStreaming(conn, sql);
+             OutputStream raw = new DigestOutputStream(Files.newOutputStream(target), digest);
+             Writer out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(raw), StandardCharsets.UTF_8))) {
+            bindMonth(pstmt, month);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int columns = meta.getColumnCount();
+                List<String> values = new ArrayList<>(columns);
+                for (int i = 1; i <= columns; i++) values.add(meta.getColumnLabel(i));
+                CsvRecord.write(out, values);
+                while (rs.next()) {
+                    values.clear();
+                    for (int i = 1; i <= columns; i++) values.add(rs.getString(i));
+                    CsvRecord.write(out, values);
+                    export.maxId = Math.max(export.maxId, rs.getLong(table.idColumn));
+                    export.rows++;
+                }
+            }
+        }
+        export.sha256 = HexFormat.of().formatHex(digest.digest());
+        return export;
+    }
+
+    // delete the exported rows of a month; sale_id/request_id <= maxId leaves out rows added since the export
+    private int purge(Table table, YearMonth month, Export export) throws SQLException {
+        if (table == Table.SALES && DatabaseConfig.SALES_PARTITIONING_ENABLED && dropSalesPartition(month, export)) {
+            return export.rows;
+        }
+        String sql = "DELETE FROM " + table.name + " WHERE " + table.monthCondition() + " AND " + table.idColumn + " <= ? " +
+            "ORDER BY " + table.idColumn + " LIMIT ?";
+        int deleted = 0;
+        while (true) {
+            int n;
+            // one autocommitted statement per chunk keeps row locks short
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                bindMonth(pstmt, month);
+                pstmt.setLong(3, export.maxId);
+                pstmt.setInt(4, DatabaseConfig.ARCHIVE_DELETE_CHUNK_SIZE);
+                n = pstmt.executeUpdate();
+            }
+            deleted += n;
+            if (n < DatabaseConfig.ARCHIVE_DELETE_CHUNK_SIZE) return deleted;
+            try {
+                Thread.sleep(DatabaseConfig.ARCHIVE_CHUNK_PAUSE_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Logger.warn("Purge of " + table.name + " " + month + " interrupted after " + deleted + " rows");
+                return deleted;
+            }
+        }
+    }
+
+    // a whole monthly partition is dropped instead of deleted row by row, if it holds exactly the exported rows
+    private boolean dropSalesPartition(YearMonth month, Export export) throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            String count = "SELECT COUNT(*), COALESCE(MAX(sale_id), 0) FROM sales WHERE " + Table.SALES.monthCondition();
+            try (PreparedStatement pstmt = conn.prepareStatement(count)) {
+                bindMonth(pstmt, month);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next() || rs.getInt(1) != export.rows || rs.getLong(2) != export.maxId) return false;
+                }
+            }
+            // only the month just verified; older months may hold rows that were never archived or were restored
+            return SalesPartitionManager.dropPartition(conn, month);
+        }
+    }
+
+    // one multi-row INSERT IGNORE, whose update count leaves out the skipped rows; a rewritten
+    // JDBC batch would only report SUCCESS_NO_INFO for every row
+    private int insertChunk(String insert, int columns, List<List<String>> rows) throws SQLException {
+        String tuple = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        String sql = insert + String.join(", ", Collections.nCopies(rows.size(), tuple));
+        return Transaction.run(tx -> {
+            try (PreparedStatement pstmt = tx.getConnection().prepareStatement(sql)) {
+                int p = 1;
+                for (List<String> row : rows) {
+                    for (int i = 0; i < columns; i++) pstmt.setString(p++, i < row.size() ? row.get(i) : null);
+                }
+                return pstmt.executeUpdate();
+            }
+        });
+    }
+
+    private List<YearMonth> monthsBefore(Table table, YearMonth cutoff) throws SQLException {
+        String sql = "SELECT DISTINCT DATE_FORMAT(" + table.dateColumn + ", '%Y-%m') FROM " + table.name +
+            " WHERE " + table.dateColumn + " < ?" + (table.filter == null ? "" : " AND " + table.filter) + " ORDER BY 1";
+        List<YearMonth> months = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setTimestamp(1, Timestamp.valueOf(cutoff.atDay(1).atStartOfDay()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) months.add(YearMonth.parse(rs.getString(1)));
+            }
+        }
+        return months;
+    }
+
+    private static void bindMonth(PreparedStatement pstmt, YearMonth month) throws SQLException {
+        pstmt.setTimestamp(1, Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+        pstmt.setTimestamp(2, Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()));
+    }
+
+    // ---- files ----
+
+    private void read(Table table, YearMonth month, Consumer<Map<String, String>> rowConsumer) throws IOException {
+        for (Path file : archiveFiles(table, month)) {
+            verify(file);
+            try (BufferedReader in = open(file)) {
+                List<String> header = CsvRecord.read(in);
+                List<String> record;
+                while (header != null && (record = CsvRecord.read(in)) != null) {
+                    Map<String, String> row = new LinkedHashMap<>();
+                    for (int i = 0; i < header.size() && i < record.size(); i++) row.put(header.get(i), record.get(i));
+                    rowConsumer.accept(row);
+                }
+            }
+        }
+    }
+
+    // sales-2023-04.csv.gz, then sales-2023-04.1.csv.gz, ... for rows archived by later runs
+    private Path newArchiveFile(Table table, YearMonth month) {
+        Path file = dir.resolve(table.name + "-" + month + ".csv.gz");
+        for (int part = 1; Files.exists(file); part++) {
+            file = dir.resolve(table.name + "-" + month + "." + part + ".csv.gz");
+        }
+        return file;
+    }
+
+    private List<Path> archiveFiles(Table table, YearMonth month) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, table.name + "-" + month + "*.csv.gz")) {
+            for (Path f : stream) files.add(f);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private static Path checksumFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".sha256");
+    }
+
+    private static BufferedReader open(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8));
+    }
+
+    private static Timestamp timestamp(String value) {
+        return value == null ? null : Timestamp.valueOf(value);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * CSV records as written by ExportUtils, plus an unquoted \N for NULL so it stays distinct from ""
+     */
+    private static final class CsvRecord {
+        static void write(Writer out, List<String> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) out.write(',');
+                String v = values.get(i);
+                if (v == null) {
+                    out.write(NULL);
+                } else if (v.equals(NULL) || v.contains(",") || v.contains("\"") || v.contains("\n") || v.contains("\r")) {
+                    out.write('"');
+                    out.write(v.replace("\"", "\"\""));
+                    out.write('"');
+                } else {
+                    out.write(v);
+                }
+            }
+            out.write('\n');
+        }
+
+        // next record, or null at end of input; quoted fields may span lines
+        static List<String> read(BufferedReader in) throws IOException {
+            int c = in.read();
+            if (c == -1) return null;
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) throw new IOException("Unterminated quoted field");
+                    if (c == '"') {
+                        in.mark(1);
+                        if (in.read() == '"') {
+                            field.append('"');
+                        } else {
+                            in.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',' || c == '\n' || c == -1) {
+                    String v = field.toString();
+                    values.add(!wasQuoted && v.equals(NULL) ? null : v);
+                    if (c != ',') return values;
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+    }
+
+    /**
+     * Run retention from the command line or a scheduler:
+     * ArchiveService                      archive and purge past the configured retention
+     * ArchiveService verify               check every archive file against its checksum
+     * ArchiveService restore sales 2023-04
+     */
+    public static void main(String[] args) throws Exception {
+        ArchiveService service = new ArchiveService();
+        try {
+            if (args.length == 0) {
+                Logger.info("Retention finished: " + service.runRetention());
+            } else if (args[0].equals("verify")) {
+                for (Table table : Table.values()) {
+                    for (YearMonth month : service.archivedMonths(table)) {
+                        for (Path file : service.archiveFiles(table, month)) {
+                            Logger.info(file + ": " + service.verify(file) + " rows OK");
+                        }
+                    }
+                }
+            } else if (args[0].equals("restore") && args.length == 3) {
+                service.restore(Table.valueOf(args[1].toUpperCase()), YearMonth.parse(args[2]));
+            } else {
+                System.err.println("Usage: ArchiveService [verify | restore <sales|requests> <yyyy-MM>]");
+            }
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+}
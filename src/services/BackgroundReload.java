@@ -0,0 +1,128 @@
+package services;
+
+import dao.AsyncDAO;
+import utils.Logger;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Background Reload
+ * Reload bookkeeping shared by the in-memory views over the products table (ProductSearchIndex,
+ * LowStockTracker, ExpiryScheduler). The owner supplies the load itself, which builds fresh
+ * contents and swaps them in under the owner's lock; this class makes sure only one load runs
+ * at a time, queues one more if asked for meanwhile, and schedules the next one refreshMs after
+ * a success or RETRY_MS after a failure. Until the first load succeeds, callers that need the
+ * contents wait for it, whether it runs on their thread or was started elsewhere.
+ */
+final class BackgroundReload {
+    private static final long RETRY_MS = 10_000;
+
+    private final String name;
+    private final long refreshMs;
+    private final BooleanSupplier load;
+
+    private boolean running;
+    private boolean requested;
+    private boolean loaded;
+    private long nextReloadAt;
+
+    /**
+     * @param name what is reloaded, for the log
+     * @param load builds and swaps in fresh contents; false if the source failed and the old contents stay
+     */
+    BackgroundReload(String name, long refreshMs, BooleanSupplier load) {
+        this.name = name;
+        this.refreshMs = refreshMs;
+        this.load = load;
+    }
+
+    /**
+     * Load now on the calling thread
+     * @return false if the load failed, or one was already running (another one follows it)
+     */
+    boolean reload() {
+        synchronized (this) {
+            if (running) {
+                requested = true;
+                return false;
+            }
+            running = true;
+        }
+        boolean ok = false;
+        try {
+            ok = load.getAsBoolean();
+        } finally {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                nextReloadAt = requested ? now : now + (ok ? refreshMs : RETRY_MS);
+                requested = false;
+                running = false;
+                loaded |= ok;
+                notifyAll();
+            }
+        }
+        if (!ok) Logger.warn(name + " reload failed; keeping the previous contents");
+        return ok;
+    }
+
+    /**
+     * Load on a background thread
+     */
+    void reloadAsync() {
+        AsyncDAO.getInstance().supply(this::reload);
+    }
+
+    /**
+     * Start a reload in the background when one is due; before the first successful load,
+     * wait for one instead (see awaitFirstLoad)
+     */
+    void refreshIfDue() {
+        if (awaitFirstLoad()) refreshInBackground();
+    }
+
+    /**
+     * Start a reload in the background when one is due, the first one included; never waits
+     */
+    void refreshInBackground() {
+        synchronized (this) {
+            if (running || System.currentTimeMillis() < nextReloadAt) return;
+            // not due again until the load just queued has finished and rescheduled
+            nextReloadAt = Long.MAX_VALUE;
+        }
+        reloadAsync();
+    }
+
+    /**
+     * Until a load has succeeded: join the load that is running (e.g. a scheduled job's or one
+     * started by a change notification), or else run one on the calling thread unless a failed
+     * one is still within its retry delay. Returns at once after the first success.
+     * @return whether a load has succeeded
+     */
+    boolean awaitFirstLoad() {
+        if (waitWhileFirstLoadRuns()) return true;
+        boolean due;
+        synchronized (this) {
+            due = !running && System.currentTimeMillis() >= nextReloadAt;
+        }
+        if (due) reload();
+        // another thread may have started one first
+        return waitWhileFirstLoadRuns();
+    }
+
+    // true once loaded; false if no load is running and none has succeeded
+    private synchronized boolean waitWhileFirstLoadRuns() {
+        try {
+            while (running && !loaded) wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return loaded;
+    }
+
+    /**
+     * Whether a load has succeeded yet
+     */
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+}
@@ -0,0 +1,349 @@
+package services;
+
+import config.DatabaseConfig;
+import dao.ProductCache;
+import dao.ProductDAO;
+import models.Product;
+import utils.Logger;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Expiry Scheduler
+ * Holds the products that expire within the next EXPIRY_WINDOW_DAYS (and those already expired)
+ * in a queue ordered soonest first, loaded with one range scan on idx_products_expiry_date and
+ * kept current from committed edits through ProductCache. Expiring-soon lists and counts are
+ * answered from the queue.
+ *
+ * A background job reloads the window every EXPIRY_CHECK_INTERVAL_MS (moving it forward a day
+ * at a time and picking up other clients' edits) and publishes "expires within EXPIRY_ALERT_DAYS"
+ * alerts to the listeners, once per product and expiry date.
+ */
+public class ExpiryScheduler {
+    private static volatile ExpiryScheduler instance;
+
+    private final Function<Date, List<Product>> source;
+    private final IntFunction<Product> lookup;
+    private final int windowDays;
+    private final BackgroundReload reloads;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private TreeSet<Expiry> queue = new TreeSet<>(Expiry.SOONEST_FIRST);
+    private Map<Integer, Expiry> byProduct = new HashMap<>();
+    private LocalDate windowEnd;  // every product expiring before this day is queued; null until loaded
+    private final Map<Integer, LocalDate> alerted = new HashMap<>();  // expiry date each product was last alerted for
+    private Set<Integer> touched;  // products changed while a reload runs, read again before it finishes
+    private ScheduledExecutorService job;
+
+    /**
+     * @param source products expiring before a day, or null on failure (ProductDAO::getProductsExpiringBefore)
+     * @param lookup one product by id (ProductDAO::getProductById)
+     */
+    public ExpiryScheduler(Function<Date, List<Product>> source, IntFunction<Product> lookup, int windowDays) {
+        this.source = source;
+        this.lookup = lookup;
+        this.windowDays = windowDays;
+        // the job reloads on its own schedule; queries only make sure the first load happened
+        this.reloads = new BackgroundReload("Expiry queue", DatabaseConfig.EXPIRY_CHECK_INTERVAL_MS, this::load);
+    }
+
+    /**
+     * Get the shared scheduler, starting its job on first use
+     */
+    public static ExpiryScheduler getInstance() {
+        if (instance == null) {
+            synchronized (ExpiryScheduler.class) {
+                if (instance == null) {
+                    ProductDAO dao = new ProductDAO();
+                    ExpiryScheduler scheduler = new ExpiryScheduler(dao::getProductsExpiringBefore, dao::getProductById,
+                        DatabaseConfig.EXPIRY_WINDOW_DAYS);
+                    ProductCache.getInstance().addListener(new ProductCache.Listener() {
+                        @Override
+                        public void productChanged(Product product) {
+                            scheduler.productChanged(product);
+                        }
+
+                        @Override
+                        public void detailsChanged(Product product) {
+                            scheduler.productChanged(product);
+                        }
+
+                        @Override
+                        public void productRemoved(int productId) {
+                            scheduler.productRemoved(productId);
+                        }
+
+                        @Override
+                        public void allInvalidated() {
+                            scheduler.reloadSoon();
+                        }
+                    });
+                    scheduler.addListener((expiries, days) -> {
+                        StringBuilder sb = new StringBuilder(expiries.size() + " product(s) expire within " + days + " days:");
+                        expiries.stream().limit(10).forEach(e -> sb.append("\n- ").append(e));
+                        Logger.warn(sb.toString());
+                    });
+                    scheduler.start(DatabaseConfig.EXPIRY_CHECK_INTERVAL_MS);
+                    instance = scheduler;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Be told about newly due expiries; called on the scheduler's thread
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Run the reload-and-alert job now and then every intervalMs on a daemon thread
+     */
+    public synchronized void start(long intervalMs) {
+        if (job != null) return;
+        job = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "expiry-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        job.scheduleWithFixedDelay(this::check, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (job != null) job.shutdownNow();
+        job = null;
+    }
+
+    /**
+     * Products expiring within the given days (expiry date on or before today + days, already
+     * expired included), soonest first. Days beyond EXPIRY_WINDOW_DAYS see only the window.
+     */
+    public List<Expiry> getExpiringWithin(int days) {
+        ensureLoaded();
+        synchronized (this) {
+            return new ArrayList<>(queue.headSet(Expiry.probe(LocalDate.now().plusDays(days + 1L))));
+        }
+    }
+
+    public int getExpiringWithinCount(int days) {
+        ensureLoaded();
+        synchronized (this) {
+            return queue.headSet(Expiry.probe(LocalDate.now().plusDays(days + 1L))).size();
+        }
+    }
+
+    /**
+     * Products expiring within EXPIRY_ALERT_DAYS
+     */
+    public int getExpiringSoonCount() {
+        return getExpiringWithinCount(DatabaseConfig.EXPIRY_ALERT_DAYS);
+    }
+
+    /**
+     * A product was created or edited; it joins, moves in or leaves the queue by its expiry date
+     */
+    public synchronized void productChanged(Product product) {
+        int id = product.getProductId();
+        if (touched != null) touched.add(id);
+        if (windowEnd == null) return;  // the first load reads it
+        Expiry old = byProduct.remove(id);
+        if (old != null) queue.remove(old);
+        Expiry expiry = inWindow(product, windowEnd) ? new Expiry(product) : null;
+        if (expiry != null) {
+            byProduct.put(id, expiry);
+            queue.add(expiry);
+        }
+        // a new date is alerted again when it comes due
+        if (expiry == null || (old != null && !old.date.equals(expiry.date))) alerted.remove(id);
+    }
+
+    public synchronized void productRemoved(int productId) {
+        if (touched != null) touched.add(productId);
+        Expiry old = byProduct.remove(productId);
+        if (old != null) queue.remove(old);
+        alerted.remove(productId);
+    }
+
+    /**
+     * Load the window again from the source; the queue keeps answering meanwhile and stays if the source fails
+     * @return false if the source failed or a reload was already running
+     */
+    public boolean reload() {
+        return reloads.reload();
+    }
+
+    private boolean load() {
+        LocalDate end = LocalDate.now().plusDays(windowDays);
+        synchronized (this) {
+            touched = new HashSet<>();
+        }
+        boolean loaded = false;
+        try {
+            List<Product> products = source.apply(Date.valueOf(end));
+            if (products != null) {
+                Map<Integer, Expiry> fresh = new HashMap<>();
+                for (Product p : products) {
+                    if (inWindow(p, end)) fresh.put(p.getProductId(), new Expiry(p));
+                }
+                while (!loaded) {
+                    // a product edited while the window was read may have been read before the edit
+                    Set<Integer> again;
+                    synchronized (this) {
+                        if (touched.isEmpty()) {
+                            swap(fresh, end);
+                            loaded = true;
+                            break;
+                        }
+                        again = touched;
+                        touched = new HashSet<>();
+                    }
+                    for (int id : again) {
+                        Product p = lookup.apply(id);
+                        if (p != null && inWindow(p, end)) fresh.put(id, new Expiry(p));
+                        else fresh.remove(id);
+                    }
+                }
+            }
+        } finally {
+            synchronized (this) {
+                touched = null;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Publish the queued products expiring within the given days that have not been alerted
+     * for their current expiry date yet
+     * @return the products alerted now
+     */
+    public List<Expiry> publishAlerts(int days) {
+        List<Expiry> due = new ArrayList<>();
+        synchronized (this) {
+            for (Expiry e : queue.headSet(Expiry.probe(LocalDate.now().plusDays(days + 1L)))) {
+                if (!e.date.equals(alerted.get(e.productId))) {
+                    alerted.put(e.productId, e.date);
+                    due.add(e);
+                }
+            }
+        }
+        if (!due.isEmpty()) {
+            for (Listener l : listeners) l.expiringSoon(due, days);
+        }
+        return due;
+    }
+
+    // the scheduled job; an exception must not end the schedule
+    private void check() {
+        try {
+            reload();
+            publishAlerts(DatabaseConfig.EXPIRY_ALERT_DAYS);
+        } catch (RuntimeException e) {
+            Logger.error("Expiry check failed", e);
+        }
+    }
+
+    // the job's first run starts as getInstance() returns, so first callers usually join that load
+    private void ensureLoaded() {
+        reloads.awaitFirstLoad();
+    }
+
+    // after a bulk import: reload on the job's thread rather than the importer's
+    private synchronized void reloadSoon() {
+        if (job != null) job.execute(this::check);
+    }
+
+    // caller holds the lock
+    private void swap(Map<Integer, Expiry> fresh, LocalDate end) {
+        byProduct = fresh;
+        queue = new TreeSet<>(Expiry.SOONEST_FIRST);
+        queue.addAll(fresh.values());
+        windowEnd = end;
+        alerted.entrySet().removeIf(a -> {
+            Expiry e = fresh.get(a.getKey());
+            return e == null || !e.date.equals(a.getValue());
+        });
+    }
+
+    private static boolean inWindow(Product p, LocalDate end) {
+        return p.getExpiryDate() != null && p.getExpiryDate().toLocalDate().isBefore(end);
+    }
+
+    /**
+     * Newly due expiries
+     */
+    public interface Listener {
+        void expiringSoon(List<Expiry> expiries, int days);
+    }
+
+    /**
+     * A product's expiry date as queued
+     */
+    public static final class Expiry {
+        static final Comparator<Expiry> SOONEST_FIRST =
+            Comparator.comparing((Expiry e) -> e.date).thenComparingInt(e -> e.productId);
+
+        private final int productId;
+        private final String productName;
+        private final LocalDate date;
+
+        Expiry(Product p) {
+            this(p.getProductId(), p.getProductName(), p.getExpiryDate().toLocalDate());
+        }
+
+        private Expiry(int productId, String productName, LocalDate date) {
+            this.productId = productId;
+            this.productName = productName;
+            this.date = date;
+        }
+
+        // sorts before every product expiring on that day
+        static Expiry probe(LocalDate date) {
+            return new Expiry(Integer.MIN_VALUE, null, date);
+        }
+
+        public int getProductId() { return productId; }
+        public String getProductName() { return productName; }
+        public Date getExpiryDate() { return Date.valueOf(date); }
+
+        /**
+         * Days until expiry; 0 today, negative once expired
+         */
+        public long getDaysLeft() {
+            return ChronoUnit.DAYS.between(LocalDate.now(), date);
+        }
+
+        public boolean isExpired() {
+            return date.isBefore(LocalDate.now());
+        }
+
+        @Override
+        public String toString() {
+            long days = getDaysLeft();
+            String when = days < 0 ? "expired " + date : days == 0 ? "expires today" : "expires " + date + " (" + days + "d)";
+            return productName + " " + when;
+        }
+    }
+}
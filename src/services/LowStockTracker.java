@@ -0,0 +1,329 @@
+package services;
+
+import config.DatabaseConfig;
+import dao.ProductCache;
+import dao.ProductDAO;
+import models.Product;
+import utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Low Stock Tracker
+ * Keeps every product's stock and threshold in memory and the set of products at or below
+ * their threshold (Product.isLowStock), so the low-stock list and count need no table scan.
+ * Follows committed sales, stock updates and edits through ProductCache, and tells its
+ * listeners when a product crosses its threshold in either direction.
+ *
+ * The shared instance loads through ProductDAO.streamProducts on first use and reloads in the
+ * background every LOW_STOCK_REFRESH_MS, which also picks up other clients' changes.
+ */
+public class LowStockTracker {
+    private static volatile LowStockTracker instance;
+
+    private final ToIntFunction<Consumer<Product>> source;
+    private final IntFunction<Product> lookup;
+    private final BackgroundReload reloads;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private Map<Integer, Level> levels = new HashMap<>();
+    private TreeSet<Level> low = new TreeSet<>(Level.BY_STOCK);
+    private Set<Integer> touched;  // products changed while a reload runs, read again before it finishes
+
+    /**
+     * Empty tracker, filled only through the change methods
+     */
+    public LowStockTracker() {
+        this(null, null, 0);
+    }
+
+    /**
+     * Tracker that loads from source (e.g. ProductDAO::streamProducts, returning -1 on failure)
+     * on first use and again every refreshMs; lookup reads one product (e.g. ProductDAO::getProductById)
+     */
+    public LowStockTracker(ToIntFunction<Consumer<Product>> source, IntFunction<Product> lookup, long refreshMs) {
+        this.source = source;
+        this.lookup = lookup;
+        this.reloads = new BackgroundReload("Low stock tracker", refreshMs, this::load);
+    }
+
+    /**
+     * Get the shared tracker over the products table
+     */
+    public static LowStockTracker getInstance() {
+        if (instance == null) {
+            synchronized (LowStockTracker.class) {
+                if (instance == null) {
+                    ProductDAO dao = new ProductDAO();
+                    LowStockTracker tracker = new LowStockTracker(dao::streamProducts, dao::getProductById,
+                        DatabaseConfig.LOW_STOCK_REFRESH_MS);
+                    ProductCache.getInstance().addListener(new ProductCache.Listener() {
+                        @Override
+                        public void productChanged(Product product) {
+                            tracker.productChanged(product);
+                        }
+
+                        @Override
+                        public void detailsChanged(Product product) {
+                            tracker.thresholdChanged(product.getProductId(), product.getProductName(),
+                                product.getThresholdValue());
+                        }
+
+                        @Override
+                        public void stockAdjusted(int productId, int delta) {
+                            tracker.stockAdjusted(productId, delta);
+                        }
+
+                        @Override
+                        public void productRemoved(int productId) {
+                            tracker.productRemoved(productId);
+                        }
+
+                        @Override
+                        public void allInvalidated() {
+                            tracker.reloadAsync();
+                        }
+                    });
+                    tracker.addListener(new Listener() {
+                        @Override
+                        public void wentLow(Level level) {
+                            Logger.warn("Low stock: " + level);
+                        }
+
+                        @Override
+                        public void recovered(Level level) {
+                            Logger.info("Stock recovered: " + level);
+                        }
+                    });
+                    instance = tracker;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Be told about threshold crossings; called outside the tracker's lock on the thread that made the change
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Products at or below their threshold, lowest stock first
+     */
+    public List<Level> getLowStock() {
+        refreshIfDue();
+        synchronized (this) {
+            return new ArrayList<>(low);
+        }
+    }
+
+    public int getLowStockCount() {
+        refreshIfDue();
+        synchronized (this) {
+            return low.size();
+        }
+    }
+
+    /**
+     * Whether the product is at or below its threshold; false if it is not known
+     */
+    public boolean isLow(int productId) {
+        refreshIfDue();
+        synchronized (this) {
+            Level level = levels.get(productId);
+            return level != null && level.isLow();
+        }
+    }
+
+    /**
+     * A product was created or had every column written
+     */
+    public void productChanged(Product product) {
+        apply(product.getProductId(), old -> new Level(product));
+    }
+
+    /**
+     * A product's descriptive fields were written; stock stays as tracked
+     */
+    public void thresholdChanged(int productId, String productName, int threshold) {
+        apply(productId, old -> old == null ? null : new Level(productId, productName, old.stock, threshold));
+    }
+
+    public void stockAdjusted(int productId, int delta) {
+        apply(productId, old -> old == null ? null : new Level(productId, old.productName, old.stock + delta, old.threshold));
+    }
+
+    public synchronized void productRemoved(int productId) {
+        if (touched != null) touched.add(productId);
+        Level old = levels.remove(productId);
+        if (old != null && old.isLow()) low.remove(old);
+    }
+
+    /**
+     * Load every product again; the tracked state keeps answering meanwhile and stays if the source fails.
+     * Crossings between the old and the loaded state (e.g. other clients' sales) are reported.
+     * @return false if the source failed, or a reload was already running (another one follows it)
+     */
+    public boolean reload() {
+        return source != null && reloads.reload();
+    }
+
+    /**
+     * Reload on a background thread
+     */
+    public void reloadAsync() {
+        if (source != null) reloads.reloadAsync();
+    }
+
+    private void refreshIfDue() {
+        if (source != null) reloads.refreshIfDue();
+    }
+
+    private boolean load() {
+        synchronized (this) {
+            touched = new HashSet<>();
+        }
+        Map<Integer, Level> fresh = new HashMap<>();
+        int count = -1;
+        List<Runnable> events = new ArrayList<>();
+        try {
+            count = source.applyAsInt(p -> fresh.put(p.getProductId(), new Level(p)));
+            while (count >= 0) {
+                // a product changed while the table was read may have been read before the change
+                Set<Integer> again;
+                synchronized (this) {
+                    if (touched.isEmpty()) {
+                        swap(fresh, events);
+                        break;
+                    }
+                    again = touched;
+                    touched = new HashSet<>();
+                }
+                for (int id : again) {
+                    Product p = lookup.apply(id);
+                    if (p != null) fresh.put(id, new Level(p));
+                    else fresh.remove(id);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                touched = null;
+            }
+        }
+        events.forEach(Runnable::run);
+        return count >= 0;
+    }
+
+    // caller holds the lock
+    private void swap(Map<Integer, Level> fresh, List<Runnable> events) {
+        TreeSet<Level> freshLow = new TreeSet<>(Level.BY_STOCK);
+        for (Level level : fresh.values()) {
+            if (level.isLow()) freshLow.add(level);
+        }
+        // the first load is the starting point, not a crossing
+        if (reloads.isLoaded()) {
+            for (Level level : freshLow) {
+                Level old = levels.get(level.productId);
+                if (old == null || !old.isLow()) events.add(() -> fireWentLow(level));
+            }
+            for (Level old : low) {
+                Level level = fresh.get(old.productId);
+                if (level != null && !level.isLow()) events.add(() -> fireRecovered(level));
+            }
+        }
+        levels = fresh;
+        low = freshLow;
+    }
+
+    // replaces a product's level (null change = leave it alone) and reports a crossing
+    private void apply(int productId, UnaryOperator<Level> change) {
+        Runnable event = null;
+        synchronized (this) {
+            if (touched != null) touched.add(productId);
+            Level old = levels.get(productId);
+            Level level = change.apply(old);
+            if (level == null) return;
+            levels.put(productId, level);
+            boolean wasLow = old != null && old.isLow();
+            if (wasLow) low.remove(old);
+            if (level.isLow()) low.add(level);
+            if (level.isLow() && !wasLow) event = () -> fireWentLow(level);
+            else if (wasLow && !level.isLow()) event = () -> fireRecovered(level);
+        }
+        if (event != null) event.run();
+    }
+
+    private void fireWentLow(Level level) {
+        for (Listener l : listeners) l.wentLow(level);
+    }
+
+    private void fireRecovered(Level level) {
+        for (Listener l : listeners) l.recovered(level);
+    }
+
+    /**
+     * Threshold crossings
+     */
+    public interface Listener {
+        // stock fell to or below the threshold (or a new product starts there)
+        void wentLow(Level level);
+        // stock rose above the threshold (or the threshold was lowered below it)
+        void recovered(Level level);
+    }
+
+    /**
+     * One product's stock against its threshold at a point in time
+     */
+    public static final class Level {
+        static final Comparator<Level> BY_STOCK =
+            Comparator.comparingInt((Level l) -> l.stock).thenComparingInt(l -> l.productId);
+
+        private final int productId;
+        private final String productName;
+        private final int stock;
+        private final int threshold;
+
+        Level(Product p) {
+            this(p.getProductId(), p.getProductName(), p.getStockQuantity(), p.getThresholdValue());
+        }
+
+        Level(int productId, String productName, int stock, int threshold) {
+            this.productId = productId;
+            this.productName = productName;
+            this.stock = stock;
+            this.threshold = threshold;
+        }
+
+        public int getProductId() { return productId; }
+        public String getProductName() { return productName; }
+        public int getStock() { return stock; }
+        public int getThreshold() { return threshold; }
+
+        public boolean isLow() {
+            return stock <= threshold;
+        }
+
+        @Override
+        public String toString() {
+            return productName + " (" + stock + " of threshold " + threshold + ")";
+        }
+    }
+}
@@ -0,0 +1,666 @@
+package services;
+
+import config.DatabaseConfig;
+import dao.ProductCache;
+import database.DatabaseConnection;
+import database.Transaction;
+import models.Product;
+import utils.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Product Import Service
+ * Streams products from CSV (as written by ExportUtils) or Excel 2003 XML (as written by
+ * ExcelExportUtils) into the products table. Rows are validated one by one, then upserted
+ * with INSERT ... ON DUPLICATE KEY UPDATE in JDBC batches of batchSize rows, committing
+ * every transactionRows rows. A row with a Product ID updates that product; a row without
+ * one updates the product with the same name, or inserts a new product. Columns the file
+ * does not have keep their current values on existing products, and so do the stock and threshold
+ * of a row whose cell is empty.
+ * Invalid rows are skipped and reported with their line (CSV) or row (XML) number;
+ * if a chunk fails in the database, its rows are retried one by one to find the bad ones.
+ */
+public class ProductImportService {
+    private static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final int NAME_MAX_LENGTH = 100;
+    private static final int DEFAULT_THRESHOLD = 10;
+
+    // new products get every column (defaults where the file has none); see upsertSql for existing ones
+    private static final String INSERT_SQL =
+        "INSERT INTO products (product_id, product_name, buying_price, selling_price, stock_quantity, " +
+        "threshold_value, expiry_date, image_path) VALUES (?, ?, ?, ?, COALESCE(?, 0), COALESCE(?, " +
+        DEFAULT_THRESHOLD + "), ?, ?) ON DUPLICATE KEY UPDATE ";
+
+    private enum Column {
+        ID(null), NAME("product_name"), BUYING_PRICE("buying_price"), SELLING_PRICE("selling_price"),
+        STOCK("stock_quantity"), THRESHOLD("threshold_value"), EXPIRY("expiry_date"), IMAGE(null);
+
+        final String dbColumn; // overwritten on existing products when the file has the column
+
+        Column(String dbColumn) {
+            this.dbColumn = dbColumn;
+        }
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT).replace('_', ' ');
+        }
+    }
+
+    // thousands grouped with commas, optionally followed by a decimal point: 1,234 or 12,345,678.50
+    private static final Pattern GROUPED_NUMBER = Pattern.compile("\\d{1,3}(,\\d{3})+(\\.\\d+)?");
+    // a decimal comma as written by decimal-comma locales: 12,50 or 12,5 (but not 1,234, which may be grouping)
+    private static final Pattern DECIMAL_COMMA = Pattern.compile("\\d+,\\d{1,2}");
+
+    // header names are compared lower-case with everything but letters and digits removed
+    private static final Map<String, Column> HEADER_ALIASES = new HashMap<>();
+    static {
+        for (String h : new String[]{"productid", "id"}) HEADER_ALIASES.put(h, Column.ID);
+        for (String h : new String[]{"productname", "name", "product"}) HEADER_ALIASES.put(h, Column.NAME);
+        for (String h : new String[]{"buyingprice", "costprice", "cost"}) HEADER_ALIASES.put(h, Column.BUYING_PRICE);
+        for (String h : new String[]{"sellingprice", "price", "unitprice"}) HEADER_ALIASES.put(h, Column.SELLING_PRICE);
+        for (String h : new String[]{"stockquantity", "quantity", "stock", "qty"}) HEADER_ALIASES.put(h, Column.STOCK);
+        for (String h : new String[]{"thresholdvalue", "threshold"}) HEADER_ALIASES.put(h, Column.THRESHOLD);
+        for (String h : new String[]{"expirydate", "expiry"}) HEADER_ALIASES.put(h, Column.EXPIRY);
+        for (String h : new String[]{"imagepath", "image"}) HEADER_ALIASES.put(h, Column.IMAGE);
+    }
+
+    /**
+     * One rejected row
+     */
+    public static final class RowError {
+        private final int row;
+        private final String message;
+
+        RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() { return row; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "row " + row + ": " + message;
+        }
+    }
+
+    /**
+     * Outcome of one import
+     */
+    public static final class ImportResult {
+        private int rowsRead;
+        private int imported;
+        private int errorCount;
+        private int keptCells;
+        private final List<RowError> errors = new ArrayList<>();
+        private final List<String> updatedColumns = new ArrayList<>();
+        private long elapsedMs;
+
+        public int getRowsRead() { return rowsRead; }
+        public int getImported() { return imported; }
+        public int getErrorCount() { return errorCount; }
+        /** The first MAX_REPORTED_ERRORS errors; getErrorCount() has the total */
+        public List<RowError> getErrors() { return errors; }
+        /** Columns the file overwrites on existing products; the others keep their current values */
+        public List<String> getUpdatedColumns() { return updatedColumns; }
+        /** Empty stock or threshold cells of valid rows; existing products keep their value there */
+        public int getKeptCells() { return keptCells; }
+        public long getElapsedMs() { return elapsedMs; }
+
+        private void error(int row, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new RowError(row, message));
+        }
+
+        @Override
+        public String toString() {
+            return "ImportResult{rowsRead=" + rowsRead + ", imported=" + imported + ", errors=" + errorCount +
+                ", elapsedMs=" + elapsedMs + "}";
+        }
+    }
+
+    // a validated row waiting to be written
+    private static final class PendingRow {
+        final int row;
+        final Integer productId;
+        final Product product;
+        // null where the cell is empty (or the column missing), so an existing product keeps its value
+        final Integer stock;
+        final Integer threshold;
+
+        PendingRow(int row, Integer productId, Product product, Integer stock, Integer threshold) {
+            this.row = row;
+            this.productId = productId;
+            this.product = product;
+            this.stock = stock;
+            this.threshold = threshold;
+        }
+    }
+
+    // rows of cells from either file format
+    private interface RowSource extends AutoCloseable {
+        /** Next row's cells, or null at the end */
+        List<String> next() throws IOException;
+
+        /** 1-based line (CSV) or row (XML) number of the row last returned */
+        int rowNumber();
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private final int batchSize;
+    private final int transactionRows;
+
+    public ProductImportService() {
+        this(DatabaseConfig.IMPORT_BATCH_SIZE, DatabaseConfig.IMPORT_TRANSACTION_ROWS);
+    }
+
+    public ProductImportService(int batchSize, int transactionRows) {
+        if (batchSize <= 0 || transactionRows <= 0) throw new IllegalArgumentException("Batch and transaction sizes must be positive");
+        this.batchSize = batchSize;
+        this.transactionRows = transactionRows;
+    }
+
+    /**
+     * Import a CSV or Excel 2003 XML file; the format is detected from the content, not the extension
+     */
+    public ImportResult importFile(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            in.mark(64);
+            byte[] head = in.readNBytes(64);
+            in.reset();
+            String start = new String(head, StandardCharsets.UTF_8).replace("\uFEFF", "").stripLeading();
+            if (start.startsWith("<")) {
+                return importExcelXml(in);
+            }
+            return importCsv(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Import CSV with a header row
+     */
+    public ImportResult importCsv(Reader reader) throws IOException {
+        try (RowSource source = new CsvSource(reader)) {
+            return run(source, true);
+        }
+    }
+
+    /**
+     * Import the first worksheet of an Excel 2003 XML spreadsheet with a header row
+     */
+    public ImportResult importExcelXml(InputStream in) throws IOException {
+        try (RowSource source = new ExcelXmlSource(in)) {
+            return run(source, true);
+        }
+    }
+
+    /**
+     * Read and validate a CSV file without touching the database; nothing is imported, and a
+     * repeated new product name is not reported since existing names are not looked up
+     */
+    public ImportResult validateCsv(Reader reader) throws IOException {
+        try (RowSource source = new CsvSource(reader)) {
+            return run(source, false);
+        }
+    }
+
+    /**
+     * Read and validate an Excel 2003 XML spreadsheet without touching the database, like validateCsv
+     */
+    public ImportResult validateExcelXml(InputStream in) throws IOException {
+        try (RowSource source = new ExcelXmlSource(in)) {
+            return run(source, false);
+        }
+    }
+
+    private ImportResult run(RowSource source, boolean write) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportResult result = new ImportResult();
+        List<String> header = source.next();
+        if (header == null) throw new IOException("File is empty");
+        Column[] columns = mapHeader(header);
+        Set<Column> present = EnumSet.noneOf(Column.class);
+        for (Column c : columns) {
+            if (c != null) present.add(c);
+        }
+        for (Column c : present) {
+            if (c.dbColumn != null) result.updatedColumns.add(c.label());
+        }
+        String upsertSql = upsertSql(present);
+        List<Column> keptWhenEmpty = keptWhenEmpty(present);
+
+        Map<String, Integer> idsByName = new HashMap<>();
+        if (write) {
+            try {
+                idsByName = loadIdsByName();
+            } catch (SQLException e) {
+                throw new IOException("Could not read existing products", e);
+            }
+        }
+        Set<String> newNames = new HashSet<>();
+        List<PendingRow> chunk = new ArrayList<>(transactionRows);
+        List<String> cells;
+        while ((cells = source.next()) != null) {
+            if (isBlank(cells)) continue;
+            result.rowsRead++;
+            int row = source.rowNumber();
+            try {
+                PendingRow pending = parse(row, columns, cells);
+                Integer id = pending.productId;
+                if (id == null) {
+                    String key = pending.product.getProductName().toLowerCase(Locale.ROOT);
+                    id = idsByName.get(key);
+                    if (id == null && write && !newNames.add(key)) {
+                        throw new IllegalArgumentException("duplicate new product name '" + pending.product.getProductName() + "'");
+                    }
+                    pending = new PendingRow(row, id, pending.product, pending.stock, pending.threshold);
+                }
+                for (Column c : keptWhenEmpty) {
+                    if ((c == Column.STOCK ? pending.stock : pending.threshold) == null) result.keptCells++;
+                }
+                chunk.add(pending);
+            } catch (IllegalArgumentException e) {
+                result.error(row, e.getMessage());
+                continue;
+            }
+            if (chunk.size() == transactionRows) {
+                if (write) write(chunk, result, upsertSql, keptWhenEmpty);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty() && write) write(chunk, result, upsertSql, keptWhenEmpty);
+        // upserts bypass ProductDAO, so cached products may be stale now
+        if (result.imported > 0) ProductCache.getInstance().invalidateAll();
+        result.elapsedMs = System.currentTimeMillis() - start;
+        if (write) Logger.info("Product import: " + result);
+        return result;
+    }
+
+    // existing products get only the columns the file has, so a price list does not reset stock;
+    // image_path, stock and threshold keep their value when the cell is empty. VALUES(stock_quantity)
+    // would be the insert's default by then, so stock and threshold are bound again for the update
+    private static String upsertSql(Set<Column> present) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL);
+        for (Column c : present) {
+            if (c.dbColumn == null) continue;
+            if (c == Column.STOCK || c == Column.THRESHOLD) {
+                sql.append(c.dbColumn).append(" = COALESCE(?, ").append(c.dbColumn).append("), ");
+            } else {
+                sql.append(c.dbColumn).append(" = VALUES(").append(c.dbColumn).append("), ");
+            }
+        }
+        return sql.append("image_path = COALESCE(VALUES(image_path), image_path), version = version + 1").toString();
+    }
+
+    // the update's extra parameters, in upsertSql's order
+    private static List<Column> keptWhenEmpty(Set<Column> present) {
+        List<Column> columns = new ArrayList<>();
+        for (Column c : present) {
+            if (c == Column.STOCK || c == Column.THRESHOLD) columns.add(c);
+        }
+        return columns;
+    }
+
+    private static Column[] mapHeader(List<String> header) throws IOException {
+        Column[] columns = new Column[header.size()];
+        Set<Column> seen = new HashSet<>();
+        for (int i = 0; i < header.size(); i++) {
+            String key = header.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+            Column c = HEADER_ALIASES.get(key);
+            if (c != null && seen.add(c)) columns[i] = c; // unknown or repeated columns are ignored
+        }
+        for (Column required : new Column[]{Column.NAME, Column.BUYING_PRICE, Column.SELLING_PRICE}) {
+            if (!seen.contains(required)) throw new IOException("Missing column for " + required.label());
+        }
+        return columns;
+    }
+
+    private static PendingRow parse(int row, Column[] columns, List<String> cells) {
+        Product p = new Product();
+        Integer id = null;
+        Integer stock = null;
+        Integer threshold = null;
+        for (int i = 0; i < columns.length && i < cells.size(); i++) {
+            if (columns[i] == null) continue;
+            String v = cells.get(i) == null ? "" : cells.get(i).trim();
+            switch (columns[i]) {
+                case ID:
+                    if (!v.isEmpty()) id = parseInt("product id", v, 1);
+                    break;
+                case NAME:
+                    p.setProductName(v);
+                    break;
+                case BUYING_PRICE:
+                    p.setBuyingPrice(parsePrice("buying price", v));
+                    break;
+                case SELLING_PRICE:
+                    p.setSellingPrice(parsePrice("selling price", v));
+                    break;
+                case STOCK:
+                    if (!v.isEmpty()) stock = parseInt("quantity", v, 0);
+                    break;
+                case THRESHOLD:
+                    if (!v.isEmpty()) threshold = parseInt("threshold", v, 0);
+                    break;
+                case EXPIRY:
+                    if (!v.isEmpty()) p.setExpiryDate(parseDate(v));
+                    break;
+                case IMAGE:
+                    if (!v.isEmpty()) p.setImagePath(v);
+                    break;
+            }
+        }
+        String name = p.getProductName();
+        if (name == null || name.isEmpty()) throw new IllegalArgumentException("product name is required");
+        if (name.length() > NAME_MAX_LENGTH) throw new IllegalArgumentException("product name is longer than " + NAME_MAX_LENGTH + " characters");
+        return new PendingRow(row, id, p, stock, threshold);
+    }
+
+    private static int parseInt(String field, String v, int min) {
+        try {
+            int n = Integer.parseInt(v);
+            if (n < min) throw new IllegalArgumentException(field + " must be at least " + min + ": " + v);
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a whole number: " + v);
+        }
+    }
+
+    private static double parsePrice(String field, String v) {
+        if (v.isEmpty()) throw new IllegalArgumentException(field + " is required");
+        String normalized = v;
+        if (v.indexOf(',') >= 0) {
+            // 1,234 reads as a thousand in one locale and as one in another, so it is rejected rather than guessed
+            if (DECIMAL_COMMA.matcher(v).matches()) normalized = v.replace(',', '.');
+            else if (GROUPED_NUMBER.matcher(v).matches() && (v.indexOf('.') >= 0 || v.indexOf(',') != v.lastIndexOf(',')))
+                normalized = v.replace(",", "");
+            else throw new IllegalArgumentException(field + " is ambiguous, write it without thousands separators: " + v);
+        }
+        try {
+            double d = Double.parseDouble(normalized);
+            if (d < 0 || Double.isNaN(d) || Double.isInfinite(d)) throw new IllegalArgumentException(field + " must not be negative: " + v);
+            return d;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: " + v);
+        }
+    }
+
+    private static Date parseDate(String v) {
+        try {
+            return Date.valueOf(LocalDate.parse(v));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("expiry date is not yyyy-MM-dd: " + v);
+        }
+    }
+
+    private static boolean isBlank(List<String> cells) {
+        for (String c : cells) {
+            if (c != null && !c.trim().isEmpty()) return false;
+        }
+        return true;
+    }
+
+    // existing product ids by lower-case name (MySQL compares names case-insensitively)
+    private static Map<String, Integer> loadIdsByName() throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT product_id, product_name FROM products ORDER BY product_id")) {
+            while (rs.next()) ids.putIfAbsent(rs.getString(2).toLowerCase(Locale.ROOT), rs.getInt(1));
+        }
+        return ids;
+    }
+
+    private void write(List<PendingRow> chunk, ImportResult result, String upsertSql, List<Column> keptWhenEmpty) {
+        try {
+            Transaction.run(tx -> {
+                try (PreparedStatement pstmt = tx.getConnection().prepareStatement(upsertSql)) {
+                    int n = 0;
+                    for (PendingRow row : chunk) {
+                        bind(pstmt, row, keptWhenEmpty);
+                        pstmt.addBatch();
+                        if (++n % batchSize == 0) pstmt.executeBatch();
+                    }
+                    if (n % batchSize != 0) pstmt.executeBatch();
+                }
+                return null;
+            });
+            result.imported += chunk.size();
+        } catch (SQLException e) {
+            // the chunk was rolled back; write its rows one at a time so only the bad ones are rejected
+            Logger.warn("Import chunk of " + chunk.size() + " rows failed (" + e.getMessage() + "), retrying row by row");
+            for (PendingRow row : chunk) {
+                try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(upsertSql)) {
+                    bind(pstmt, row, keptWhenEmpty);
+                    pstmt.executeUpdate();
+                    result.imported++;
+                } catch (SQLException rowError) {
+                    result.error(row.row, rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, PendingRow row, List<Column> keptWhenEmpty) throws SQLException {
+        Product p = row.product;
+        if (row.productId == null) pstmt.setNull(1, Types.INTEGER);
+        else pstmt.setInt(1, row.productId);
+        pstmt.setString(2, p.getProductName());
+        pstmt.setDouble(3, p.getBuyingPrice());
+        pstmt.setDouble(4, p.getSellingPrice());
+        setNullableInt(pstmt, 5, row.stock);
+        setNullableInt(pstmt, 6, row.threshold);
+        pstmt.setDate(7, p.getExpiryDate());
+        pstmt.setString(8, p.getImagePath());
+        int i = 9;
+        for (Column c : keptWhenEmpty) setNullableInt(pstmt, i++, c == Column.STOCK ? row.stock : row.threshold);
+    }
+
+    private static void setNullableInt(PreparedStatement pstmt, int index, Integer value) throws SQLException {
+        if (value == null) pstmt.setNull(index, Types.INTEGER);
+        else pstmt.setInt(index, value);
+    }
+
+    /**
+     * CSV records; quoted fields may contain commas, doubled quotes and line breaks
+     */
+    private static final class CsvSource implements RowSource {
+        private final BufferedReader in;
+        private int line;        // lines consumed so far
+        private int recordLine;  // first line of the record last returned
+
+        CsvSource(Reader reader) {
+            this.in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        }
+
+        @Override
+        public List<String> next() throws IOException {
+            int c = in.read();
+            if (c == -1) return null;
+            if (line == 0 && c == '\uFEFF') c = in.read();
+            recordLine = ++line;
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                    if (c == '"') {
+                        in.mark(1);
+                        if (in.read() == '"') {
+                            field.append('"');
+                        } else {
+                            in.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',' || c == '\n' || c == -1) {
+                    values.add(field.toString());
+                    if (c != ',') return values;
+                    field.setLength(0);
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+
+        @Override
+        public int rowNumber() {
+            return recordLine;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Rows of the first Worksheet in an Excel 2003 XML (SpreadsheetML) file, read with StAX
+     */
+    private static final class ExcelXmlSource implements RowSource {
+        private static final String SS = "urn:schemas-microsoft-com:office:spreadsheet";
+
+        private final XMLStreamReader xml;
+        private int row;
+        private boolean done;
+
+        ExcelXmlSource(InputStream in) throws IOException {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            // no DTDs or external entities from an imported file
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            try {
+                this.xml = factory.createXMLStreamReader(in);
+            } catch (XMLStreamException e) {
+                throw new IOException("Not an XML spreadsheet", e);
+            }
+        }
+
+        @Override
+        public List<String> next() throws IOException {
+            if (done) return null;
+            try {
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("Row")) {
+                        String index = xml.getAttributeValue(SS, "Index");
+                        row = index != null ? Integer.parseInt(index) : row + 1;
+                        return readRow();
+                    }
+                    if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("Worksheet")) {
+                        break;
+                    }
+                }
+                done = true;
+                return null;
+            } catch (XMLStreamException | NumberFormatException e) {
+                throw new IOException("Malformed spreadsheet near row " + row, e);
+            }
+        }
+
+        // cells of the current <Row>; ss:Index on a Cell skips empty cells before it
+        private List<String> readRow() throws XMLStreamException {
+            List<String> cells = new ArrayList<>();
+            StringBuilder text = null;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if (name.equals("Cell")) {
+                        String index = xml.getAttributeValue(SS, "Index");
+                        if (index != null) {
+                            while (cells.size() < Integer.parseInt(index) - 1) cells.add("");
+                        }
+                        cells.add("");
+                    } else if (name.equals("Data")) {
+                        text = new StringBuilder();
+                    }
+                } else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) && text != null) {
+                    text.append(xml.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if (name.equals("Data") && text != null) {
+                        cells.set(cells.size() - 1, text.toString());
+                        text = null;
+                    } else if (name.equals("Row")) {
+                        break;
+                    }
+                }
+            }
+            return cells;
+        }
+
+        @Override
+        public int rowNumber() {
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                xml.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Import a file from the command line: ProductImportService products.csv
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: ProductImportService <file.csv|file.xls>");
+            return;
+        }
+        try {
+            ImportResult result = new ProductImportService().importFile(Path.of(args[0]));
+            System.out.println(result);
+            for (RowError e : result.getErrors()) System.out.println("  " + e);
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+}
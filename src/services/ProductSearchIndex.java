@@ -0,0 +1,601 @@
+package services;
+
+import config.DatabaseConfig;
+import dao.ProductCache;
+import dao.ProductDAO;
+import models.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Product Search Index
+ * In-memory typeahead over product names. Names are split into lower-case words; a trie over the
+ * words answers prefix queries ("whole mi" finds "Whole Milk 1L") and trigram postings over the
+ * same words find near misses for a word that matches nothing ("choclate" finds "Chocolate").
+ * Results are ranked: whole name equal to the query, then name starting with it, then the rest,
+ * with fewer typos and shorter names first.
+ *
+ * The shared instance loads through ProductDAO.streamProducts in the background, starting on first
+ * use (searches find nothing until it is done), follows committed changes through ProductCache and
+ * reloads in the background every SEARCH_INDEX_REFRESH_MS. Searching never waits for a load.
+ */
+public class ProductSearchIndex {
+    private static volatile ProductSearchIndex instance;
+
+    // posting-list seeks per search before giving up on filling the limit; the "starts with" pass gets 2%
+    private static final int MAX_SEEKS = 100_000;
+    private static final int FUZZY_MIN_LENGTH = 3;
+    private static final int FUZZY_CANDIDATES = 200;  // words sharing the most trigrams get an edit-distance check
+    private static final int FUZZY_EXPANSIONS = 8;    // similar words a misspelt one may stand for
+
+    private final ToIntFunction<Consumer<Product>> source;
+    private final BackgroundReload reloads;
+
+    private Index index = new Index();
+    private List<Consumer<Index>> pending;  // changes made while a reload runs, replayed onto the new index
+
+    /**
+     * Empty index, filled only through put and remove
+     */
+    public ProductSearchIndex() {
+        this(null, 0);
+    }
+
+    /**
+     * Index that loads from source (e.g. ProductDAO::streamProducts, returning -1 on failure)
+     * in the background from the first search on, and again every refreshMs
+     */
+    public ProductSearchIndex(ToIntFunction<Consumer<Product>> source, long refreshMs) {
+        this.source = source;
+        this.reloads = new BackgroundReload("Product search index", refreshMs, this::load);
+    }
+
+    /**
+     * Get the shared index over the products table
+     */
+    public static ProductSearchIndex getInstance() {
+        if (instance == null) {
+            synchronized (ProductSearchIndex.class) {
+                if (instance == null) {
+                    ProductSearchIndex idx = new ProductSearchIndex(new ProductDAO()::streamProducts,
+                        DatabaseConfig.SEARCH_INDEX_REFRESH_MS);
+                    ProductCache.getInstance().addListener(new ProductCache.Listener() {
+                        @Override
+                        public void productChanged(Product product) {
+                            idx.put(product.getProductId(), product.getProductName());
+                        }
+
+                        @Override
+                        public void detailsChanged(Product product) {
+                            idx.put(product.getProductId(), product.getProductName());
+                        }
+
+                        @Override
+                        public void productRemoved(int productId) {
+                            idx.remove(productId);
+                        }
+
+                        @Override
+                        public void allInvalidated() {
+                            idx.reloadAsync();
+                        }
+                    });
+                    instance = idx;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Add a product or rename it
+     */
+    public synchronized void put(int productId, String name) {
+        index.put(productId, name);
+        if (pending != null) pending.add(i -> i.put(productId, name));
+    }
+
+    public synchronized void remove(int productId) {
+        index.remove(productId);
+        if (pending != null) pending.add(i -> i.remove(productId));
+    }
+
+    public synchronized int size() {
+        return index.entries.size();
+    }
+
+    /**
+     * Best matches for what has been typed so far, best first; at most limit
+     */
+    public List<Match> search(String query, int limit) {
+        refreshIfDue();
+        synchronized (this) {
+            return index.search(query, limit);
+        }
+    }
+
+    /**
+     * Load everything from the source again; the current contents keep answering meanwhile
+     * and stay if the source fails
+     * @return false if the source failed, or a reload was already running (another one follows it)
+     */
+    public boolean reload() {
+        return source != null && reloads.reload();
+    }
+
+    /**
+     * Reload on a background thread
+     */
+    public void reloadAsync() {
+        if (source != null) reloads.reloadAsync();
+    }
+
+    private void refreshIfDue() {
+        if (source != null) reloads.refreshInBackground();
+    }
+
+    private boolean load() {
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        Index fresh = new Index();
+        fresh.loading = true;
+        int count = -1;
+        try {
+            count = source.applyAsInt(p -> fresh.put(p.getProductId(), p.getProductName()));
+        } finally {
+            synchronized (this) {
+                if (count >= 0) {
+                    fresh.finishLoading();
+                    for (Consumer<Index> change : pending) change.accept(fresh);
+                    index = fresh;
+                }
+                pending = null;
+            }
+        }
+        return count >= 0;
+    }
+
+    // lower-case words of letters and digits
+    private static String[] words(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (!word.isEmpty()) {
+                words.add(word.toString().toLowerCase(Locale.ROOT));
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) words.add(word.toString().toLowerCase(Locale.ROOT));
+        return words.toArray(new String[0]);
+    }
+
+    // distinct trigrams of the word padded with a space on each side, three chars packed into a long
+    private static long[] trigrams(String word) {
+        String padded = " " + word + " ";
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    // edit distance of typed against the whole word or a prefix of about the same length (still typing)
+    private static int distance(String typed, String word) {
+        int best = osa(typed, word);
+        for (int len = typed.length() - 1; len <= typed.length() + 1; len++) {
+            if (len > 0 && len < word.length()) best = Math.min(best, osa(typed, word.substring(0, len)));
+        }
+        return best;
+    }
+
+    // optimal string alignment distance: insertions, deletions, substitutions and adjacent swaps
+    private static int osa(String a, String b) {
+        int[] prev2 = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    cur[j] = Math.min(cur[j], prev2[j - 2] + 1);
+                }
+            }
+            int[] t = prev2; prev2 = prev; prev = cur; cur = t;
+        }
+        return prev[b.length()];
+    }
+
+    /**
+     * The words, trie and trigram postings; not thread-safe, guarded by the owning ProductSearchIndex
+     */
+    private static final class Index {
+        final Map<Integer, Entry> entries = new HashMap<>();
+        final Node root = new Node();       // every word of every name
+        final Node leadRoot = new Node();   // first word of each name only, for the "starts with" pass
+        final Map<Long, List<Node>> trigrams = new HashMap<>();
+        // while loading a whole table postings are appended and sorted once at the end
+        boolean loading;
+
+        void finishLoading() {
+            sortAll(root);
+            sortAll(leadRoot);
+            loading = false;
+        }
+
+        private static void sortAll(Node n) {
+            Arrays.sort(n.postings, 0, n.size);
+            for (Node c : n.children) sortAll(c);
+        }
+
+        void put(int id, String name) {
+            if (name == null) name = "";
+            Entry old = entries.get(id);
+            if (old != null) {
+                if (old.name.equals(name)) return;
+                remove(id);
+            }
+            Entry e = new Entry(id, name);
+            entries.put(id, e);
+            for (String word : e.words) {
+                Node node = add(root, word, e.rank, loading);
+                if (node.word == null) {
+                    node.word = word;
+                    for (long g : trigrams(word)) trigrams.computeIfAbsent(g, k -> new ArrayList<>()).add(node);
+                }
+            }
+            if (e.words.length > 0) add(leadRoot, e.lead, e.rank, loading);
+        }
+
+        void remove(int id) {
+            Entry e = entries.remove(id);
+            if (e == null) return;
+            for (String word : e.words) removePosting(root, word, e.rank);
+            if (e.words.length > 0) removePosting(leadRoot, e.lead, e.rank);
+        }
+
+        // the word's node
+        private static Node add(Node from, String word, long rank, boolean append) {
+            Node n = from;
+            for (int i = 0; i < word.length(); i++) {
+                n = n.childOrAdd(word.charAt(i));
+                n.count++;
+            }
+            n.addPosting(rank, append);
+            return n;
+        }
+
+        private static void removePosting(Node from, String word, long rank) {
+            Node n = find(from, word);
+            if (n == null || !n.removePosting(rank)) return;
+            // emptied nodes stay until the next reload
+            n = from;
+            for (int i = 0; i < word.length(); i++) {
+                n = n.child(word.charAt(i));
+                n.count--;
+            }
+        }
+
+        private static Node find(Node from, String prefix) {
+            Node n = from;
+            for (int i = 0; i < prefix.length() && n != null; i++) n = n.child(prefix.charAt(i));
+            return n;
+        }
+
+        List<Match> search(String query, int limit) {
+            String[] words = words(query == null ? "" : query);
+            if (words.length == 0 || limit <= 0) return List.of();
+            String phrase = String.join(" ", words);
+
+            // every query word has to match a word of the name, as a prefix or failing that as a near miss
+            List<List<Alternative>> alternatives = new ArrayList<>(words.length);
+            List<WordCursor> cursors = new ArrayList<>(words.length);
+            for (String word : words) {
+                List<Alternative> alts = prefix(word);
+                if (alts.isEmpty()) alts = similar(word);
+                if (alts.isEmpty()) return List.of();
+                alternatives.add(alts);
+                cursors.add(new WordCursor(alts));
+            }
+            // rarest first, so the join skips ahead in big steps
+            cursors.sort(Comparator.comparingLong(c -> c.count));
+
+            Map<Integer, Scored> found = new LinkedHashMap<>();
+            // pass 1: names starting with the query, found through their first word
+            Node lead = find(leadRoot, words[0]);
+            if (lead != null && lead.count > 0) {
+                List<WordCursor> withLead = new ArrayList<>(cursors);
+                withLead.add(0, new WordCursor(List.of(new Alternative(words[0], lead, 0))));
+                join(withLead, limit, MAX_SEEKS / 50, found, e -> {
+                    if (e.normalized.equals(phrase)) return new Scored(e, 0);
+                    return e.normalized.startsWith(phrase) ? new Scored(e, 1) : null;
+                });
+            }
+            // pass 2: any name matching every word
+            if (found.size() < limit) {
+                join(cursors, limit, MAX_SEEKS, found, e -> {
+                    int typos = 0;
+                    for (List<Alternative> alts : alternatives) {
+                        int t = typos(e, alts);
+                        if (t < 0) return null;
+                        typos += t;
+                    }
+                    int tier = e.normalized.equals(phrase) ? 0 : e.normalized.startsWith(phrase) ? 1 : 2;
+                    return new Scored(e, typos * 3 + tier);
+                });
+            }
+            List<Scored> ranked = new ArrayList<>(found.values());
+            ranked.sort(null);
+            List<Match> matches = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (Scored s : ranked.subList(0, Math.min(limit, ranked.size()))) {
+                matches.add(new Match(s.entry.id, s.entry.name));
+            }
+            return matches;
+        }
+
+        // leapfrog join: walks the products every cursor has, shortest name first, until found holds target
+        private void join(List<WordCursor> cursors, int target, int maxSeeks, Map<Integer, Scored> found,
+                          Function<Entry, Scored> score) {
+            for (WordCursor c : cursors) c.reset();
+            long rank = 0;
+            int seeks = 0;
+            while (found.size() < target && seeks < maxSeeks) {
+                boolean agreed = true;
+                for (WordCursor c : cursors) {
+                    long next = c.seek(rank);
+                    seeks++;
+                    if (next < 0) return;
+                    if (next != rank) {
+                        rank = next;
+                        agreed = false;
+                        break;
+                    }
+                }
+                if (!agreed) continue;
+                int id = (int) rank;
+                if (!found.containsKey(id)) {
+                    Entry e = entries.get(id);
+                    Scored s = e != null ? score.apply(e) : null;
+                    if (s != null) found.put(id, s);
+                }
+                rank++;
+            }
+        }
+
+        // fewest typos with which some word of the name matches one of alts, or -1
+        private static int typos(Entry e, List<Alternative> alts) {
+            int best = -1;
+            for (Alternative a : alts) {
+                if (best >= 0 && a.typos >= best) continue;
+                for (String w : e.words) {
+                    if (w.startsWith(a.text)) {
+                        best = a.typos;
+                        break;
+                    }
+                }
+            }
+            return best;
+        }
+
+        private List<Alternative> prefix(String word) {
+            Node n = find(root, word);
+            return n != null && n.count > 0 ? List.of(new Alternative(word, n, 0)) : List.of();
+        }
+
+        // indexed words within one typo (two for longer words) of a word that matched nothing
+        private List<Alternative> similar(String word) {
+            if (word.length() < FUZZY_MIN_LENGTH) return List.of();
+            int maxTypos = word.length() <= 4 ? 1 : 2;
+            Map<Node, Integer> shared = new HashMap<>();
+            for (long g : trigrams(word)) {
+                List<Node> posting = trigrams.get(g);
+                if (posting != null) for (Node n : posting) shared.merge(n, 1, Integer::sum);
+            }
+            List<Map.Entry<Node, Integer>> byShared = new ArrayList<>(shared.entrySet());
+            byShared.sort(Map.Entry.<Node, Integer>comparingByValue().reversed());
+            List<Alternative> alts = new ArrayList<>();
+            for (Map.Entry<Node, Integer> c : byShared.subList(0, Math.min(FUZZY_CANDIDATES, byShared.size()))) {
+                Node n = c.getKey();
+                if (n.count == 0) continue;
+                int typos = distance(word, n.word);
+                if (typos <= maxTypos) alts.add(new Alternative(n.word, n, typos));
+            }
+            alts.sort(Comparator.comparingInt((Alternative a) -> a.typos).thenComparing(a -> -a.node.count));
+            return alts.size() > FUZZY_EXPANSIONS ? alts.subList(0, FUZZY_EXPANSIONS) : alts;
+        }
+    }
+
+    private static final class Entry {
+        final int id;
+        final String name;
+        final String normalized;  // words joined by single spaces
+        final String lead;        // first word, if any
+        final String[] words;     // distinct
+        final long rank;          // name length, then id: smaller sorts first
+
+        Entry(int id, String name) {
+            this.id = id;
+            this.name = name;
+            String[] all = words(this.name);
+            this.normalized = String.join(" ", all);
+            this.lead = all.length > 0 ? all[0] : "";
+            this.words = Arrays.stream(all).distinct().toArray(String[]::new);
+            this.rank = ((long) this.name.length() << 32) | (id & 0xFFFF_FFFFL);
+        }
+    }
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final long[] NO_POSTINGS = new long[0];
+
+        char[] keys = NO_KEYS;           // sorted, parallel to children
+        Node[] children = NO_CHILDREN;
+        int count;                       // postings in this subtree
+        String word;                     // the word ending here, once some name has had it
+        long[] postings = NO_POSTINGS;   // ranks of the names with exactly this word, ascending once loaded
+        int size;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrAdd(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) return children[i];
+            i = -i - 1;
+            char[] k = new char[keys.length + 1];
+            Node[] ch = new Node[children.length + 1];
+            System.arraycopy(keys, 0, k, 0, i);
+            System.arraycopy(keys, i, k, i + 1, keys.length - i);
+            System.arraycopy(children, 0, ch, 0, i);
+            System.arraycopy(children, i, ch, i + 1, children.length - i);
+            k[i] = c;
+            ch[i] = new Node();
+            keys = k;
+            children = ch;
+            return ch[i];
+        }
+
+        // append leaves sorting to Index.finishLoading, so loading a table is not quadratic in its commonest words
+        void addPosting(long rank, boolean append) {
+            int i = append ? size : -Arrays.binarySearch(postings, 0, size, rank) - 1;
+            if (size == postings.length) postings = Arrays.copyOf(postings, Math.max(4, size * 2));
+            System.arraycopy(postings, i, postings, i + 1, size - i);
+            postings[i] = rank;
+            size++;
+        }
+
+        boolean removePosting(long rank) {
+            int i = Arrays.binarySearch(postings, 0, size, rank);
+            if (i < 0) return false;
+            System.arraycopy(postings, i + 1, postings, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * A word a query word may stand for: itself as a prefix, or a similar indexed word
+     */
+    private static final class Alternative {
+        final String text;
+        final Node node;
+        final int typos;
+
+        Alternative(String text, Node node, int typos) {
+            this.text = text;
+            this.node = node;
+            this.typos = typos;
+        }
+    }
+
+    /**
+     * The postings of every word under some trie nodes, searched forward in rank order
+     */
+    private static final class WordCursor {
+        final long count;           // postings under the nodes, an upper bound on the products
+        private final Node[] lists;
+        private final int[] positions;
+
+        WordCursor(List<Alternative> alts) {
+            // nodes of near misses may nest ("choco" under "choc"), so each list is taken once
+            Set<Node> nodes = new LinkedHashSet<>();
+            for (Alternative a : alts) addLists(a.node, nodes);
+            lists = nodes.toArray(new Node[0]);
+            positions = new int[lists.length];
+            long total = 0;
+            for (Node n : lists) total += n.size;
+            count = total;
+        }
+
+        private static void addLists(Node n, Set<Node> into) {
+            if (n.size > 0) into.add(n);
+            for (Node c : n.children) if (c.count > 0) addLists(c, into);
+        }
+
+        void reset() {
+            Arrays.fill(positions, 0);
+        }
+
+        // smallest rank >= target in any list, or -1 when none is left; never moves backwards
+        long seek(long target) {
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < lists.length; i++) {
+                Node n = lists[i];
+                int p = gallop(n.postings, positions[i], n.size, target);
+                positions[i] = p;
+                if (p < n.size && n.postings[p] < min) min = n.postings[p];
+            }
+            return min == Long.MAX_VALUE ? -1 : min;
+        }
+
+        // first index at or after from whose value is >= target: doubling steps, then a binary search
+        private static int gallop(long[] a, int from, int size, long target) {
+            int lo = from;
+            int step = 1;
+            while (lo + step < size && a[lo + step] < target) {
+                lo += step;
+                step <<= 1;
+            }
+            int i = Arrays.binarySearch(a, lo, Math.min(size, lo + step + 1), target);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+
+    private static final class Scored implements Comparable<Scored> {
+        final Entry entry;
+        final int score;  // tier (0 exact, 1 starts with, 2 other) + 3 per typo
+
+        Scored(Entry entry, int score) {
+            this.entry = entry;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Scored o) {
+            int c = Integer.compare(score, o.score);
+            return c != 0 ? c : Long.compare(entry.rank, o.entry.rank);
+        }
+    }
+
+    /**
+     * One search hit; toString gives "id - name" as used by the product pickers
+     */
+    public static final class Match {
+        private final int productId;
+        private final String name;
+
+        Match(int productId, String name) {
+            this.productId = productId;
+            this.name = name;
+        }
+
+        public int getProductId() { return productId; }
+        public String getName() { return name; }
+
+        @Override
+        public String toString() {
+            return productId + " - " + name;
+        }
+    }
+}
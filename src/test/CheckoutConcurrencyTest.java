@@ -0,0 +1,118 @@
+package test;
+
+import dao.ProductDAO;
+import dao.SaleDAO;
+import models.CheckoutResult;
+import models.Product;
+import models.Sale;
+import utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Manual concurrency test for SaleDAO.checkout.
+ * Creates a few scratch products and lets several threads check out carts over the same
+ * products at once, each cart listing its products in a random order so that unordered
+ * row locking would deadlock. Passes when no checkout fails (a deadlock or lock wait
+ * timeout surfaces as FAILED), every thread finishes in time, and each product's stock
+ * equals its starting stock minus what the completed checkouts sold.
+ * Needs the database; the scratch products (and their sales) are deleted afterwards.
+ * Usage: CheckoutConcurrencyTest [threads=8] [checkoutsPerThread=50]
+ */
+public class CheckoutConcurrencyTest {
+    private static final int PRODUCTS = 10;
+    private static final int START_STOCK = 200;
+    private static final int MAX_LINES = 8;
+    private static final int MAX_QTY = 5;
+    private static final long TIMEOUT_S = 120;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        ProductDAO productDAO = new ProductDAO();
+        SaleDAO saleDAO = new SaleDAO();
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product p = new Product("Checkout Test " + i, 1.0, 2.0, START_STOCK, 0, null);
+            if (!productDAO.createProduct(p)) {
+                Logger.warn("Could not create scratch products; is the database up?");
+                cleanUp(productDAO, ids);
+                return;
+            }
+            ids.add(p.getProductId());
+        }
+
+        AtomicIntegerArray sold = new AtomicIntegerArray(PRODUCTS);
+        Map<CheckoutResult.Status, Integer> outcomes = new EnumMap<>(CheckoutResult.Status.class);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int c = 0; c < perThread; c++) {
+                    List<Integer> picks = new ArrayList<>();
+                    for (int i = 0; i < PRODUCTS; i++) picks.add(i);
+                    Collections.shuffle(picks, rnd);
+                    // no user (0): the sales are stored with user_id NULL
+                    List<Sale> cart = new ArrayList<>();
+                    for (int index : picks.subList(0, 2 + rnd.nextInt(MAX_LINES - 1))) {
+                        cart.add(new Sale(ids.get(index), null, 1 + rnd.nextInt(MAX_QTY), 0, 0));
+                    }
+                    CheckoutResult result = saleDAO.checkout(cart);
+                    if (result.isCompleted()) {
+                        for (Sale line : cart) sold.addAndGet(ids.indexOf(line.getProductId()), line.getQuantity());
+                    }
+                    synchronized (outcomes) {
+                        outcomes.merge(result.getStatus(), 1, Integer::sum);
+                    }
+                }
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        boolean finished = pool.awaitTermination(TIMEOUT_S, TimeUnit.SECONDS);
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        Logger.info(threads + " threads x " + perThread + " checkouts in " + ms + " ms: " + outcomes);
+
+        boolean passed = finished && !outcomes.containsKey(CheckoutResult.Status.FAILED);
+        if (!finished) Logger.warn("Checkouts did not finish within " + TIMEOUT_S + " s");
+        for (int i = 0; i < PRODUCTS; i++) {
+            // read past the product cache so the check sees the committed rows
+            List<Product> row = productDAO.getProductsPage(ids.get(i) - 1, 1);
+            int stock = row.isEmpty() ? -1 : row.get(0).getStockQuantity();
+            int expected = START_STOCK - sold.get(i);
+            if (stock != expected || stock < 0) {
+                Logger.warn("Product " + ids.get(i) + ": stock " + stock + ", expected " + expected);
+                passed = false;
+            }
+        }
+        if (passed) Logger.info("Checkout concurrency test passed: no failed checkouts, stock consistent.");
+        else Logger.warn("Checkout concurrency test FAILED");
+
+        pool.shutdownNow();
+        cleanUp(productDAO, ids);
+        if (!passed) System.exit(1);
+    }
+
+    private static void cleanUp(ProductDAO productDAO, List<Integer> ids) {
+        for (int id : ids) productDAO.deleteProduct(id);
+    }
+}
@@ -34,6 +34,7 @@ public class DaoSmokeTests {
         Logger.info("User create result: " + created);
         List<User> users = userDAO.getAllUsers();
         Logger.info("Total users fetched: " + users.size());
+        Logger.info("User summaries fetched: " + userDAO.getUserSummaries().size());
     }
 
     private static void testProductDAO() {
@@ -49,6 +50,7 @@ public class DaoSmokeTests {
         Logger.info("Product create result: " + created);
         List<Product> list = productDAO.getAllProducts();
         Logger.info("Total products fetched: " + list.size());
+        Logger.info("Product summaries fetched: " + productDAO.getProductSummaries().size());
     }
 
     private static void testSaleDAO() {
@@ -0,0 +1,122 @@
+package test;
+
+import services.ProductImportService;
+import services.ProductImportService.ImportResult;
+import utils.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Checks for ProductImportService's CSV and SpreadsheetML parsing, run through validateCsv /
+ * validateExcelXml so no database is needed: header mapping, the columns an import overwrites,
+ * empty stock cells, quoted CSV fields, price formats and row numbers in error reports.
+ * Run manually; exits with status 1 if a check fails.
+ */
+public class ProductImportParsingTest {
+    private static final String SS = "urn:schemas-microsoft-com:office:spreadsheet";
+    private static final ProductImportService service = new ProductImportService();
+    private static int failures;
+
+    public static void main(String[] args) throws IOException {
+        testUpdatedColumns();
+        testEmptyStockCell();
+        testQuotedCsv();
+        testPrices();
+        testErrorRows();
+        testMissingColumn();
+        testSpreadsheetXml();
+        if (failures == 0) {
+            Logger.info("Product import parsing tests passed.");
+        } else {
+            Logger.warn(failures + " product import parsing check(s) failed");
+            System.exit(1);
+        }
+    }
+
+    private static void testUpdatedColumns() throws IOException {
+        ImportResult prices = csv("Product Name,Buying Price,Selling Price\nMilk,1.50,2.00\n");
+        check(prices.getErrorCount() == 0, "price list parses: " + prices.getErrors());
+        check(prices.getUpdatedColumns().equals(List.of("name", "buying price", "selling price")),
+            "price list overwrites only name and prices: " + prices.getUpdatedColumns());
+
+        ImportResult full = csv("Product ID,Product Name,Buying Price,Selling Price,Stock Quantity,Threshold,Expiry Date,Image\n" +
+            "7,Milk,1.50,2.00,40,5,2030-01-31,milk.png\n");
+        check(full.getErrorCount() == 0, "full row parses: " + full.getErrors());
+        check(full.getUpdatedColumns().equals(List.of("name", "buying price", "selling price", "stock", "threshold", "expiry")),
+            "full file overwrites every column but id and image: " + full.getUpdatedColumns());
+    }
+
+    private static void testEmptyStockCell() throws IOException {
+        ImportResult r = csv("name,cost,price,qty,threshold\nMilk,1,2,,5\nTea,1,2,7,\nRice,1,2\n");
+        check(r.getErrorCount() == 0, "empty stock and threshold cells are accepted: " + r.getErrors());
+        check(r.getKeptCells() == 4, "empty and missing cells keep the current stock and threshold: " + r.getKeptCells());
+        check(csv("name,cost,price,qty\nMilk,1,2,0\n").getKeptCells() == 0, "a stock of 0 is written, not kept");
+        check(csv("name,cost,price\nMilk,1,2\n").getKeptCells() == 0, "no stock column, nothing counted as kept");
+    }
+
+    private static void testQuotedCsv() throws IOException {
+        ImportResult r = csv("\uFEFFname,cost,price\n\"Nuts, salted \"\"large\"\"\",1,2\n\"Two\nlines\",1,2\n");
+        check(r.getRowsRead() == 2 && r.getErrorCount() == 0, "BOM, quoted commas, quotes and line breaks: " + r);
+    }
+
+    private static void testPrices() throws IOException {
+        for (String ok : new String[]{"12.50", "12,50", "12,5", "0", "1,234.50", "12,345,678", "12,345.5"}) {
+            ImportResult r = csv("name,cost,price\nItem,1,\"" + ok + "\"\n");
+            check(r.getErrorCount() == 0, "price " + ok + " is accepted: " + r.getErrors());
+        }
+        for (String bad : new String[]{"1,234", "1.234,50", "1,23,4", "abc", "-1", ""}) {
+            ImportResult r = csv("name,cost,price\nItem,1,\"" + bad + "\"\n");
+            check(r.getErrorCount() == 1, "price '" + bad + "' is rejected");
+        }
+    }
+
+    private static void testErrorRows() throws IOException {
+        // the quoted line break makes the third record start on line 4
+        ImportResult r = csv("name,cost,price,qty\n\"A\nB\",1,2,3\n,1,2,3\nC,1,2,-1\n");
+        check(r.getRowsRead() == 3, "three records read: " + r);
+        check(r.getErrorCount() == 2, "missing name and negative quantity rejected: " + r.getErrors());
+        check(r.getErrors().size() == 2 && r.getErrors().get(0).getRow() == 4 && r.getErrors().get(1).getRow() == 5,
+            "errors carry the records' line numbers: " + r.getErrors());
+    }
+
+    private static void testMissingColumn() {
+        try {
+            csv("name,price\nMilk,2\n");
+            check(false, "a file without a buying price column is refused");
+        } catch (IOException e) {
+            check(e.getMessage().contains("buying price"), "missing column is named: " + e.getMessage());
+        }
+    }
+
+    private static void testSpreadsheetXml() throws IOException {
+        String xml = "<?xml version=\"1.0\"?>\n" +
+            "<Workbook xmlns=\"" + SS + "\" xmlns:ss=\"" + SS + "\"><Worksheet ss:Name=\"Products\"><Table>\n" +
+            "<Row><Cell><Data ss:Type=\"String\">Product Name</Data></Cell><Cell><Data ss:Type=\"String\">Buying Price</Data></Cell>" +
+            "<Cell><Data ss:Type=\"String\">Selling Price</Data></Cell><Cell><Data ss:Type=\"String\">Stock</Data></Cell></Row>\n" +
+            "<Row><Cell><Data ss:Type=\"String\">Tea &amp; Honey</Data></Cell><Cell><Data ss:Type=\"Number\">1.5</Data></Cell>" +
+            "<Cell ss:Index=\"4\"><Data ss:Type=\"Number\">3</Data></Cell></Row>\n" +
+            "<Row ss:Index=\"5\"><Cell><Data ss:Type=\"String\">Rice</Data></Cell><Cell><Data ss:Type=\"Number\">1</Data></Cell>" +
+            "<Cell><Data ss:Type=\"Number\">2</Data></Cell></Row>\n" +
+            "</Table></Worksheet></Workbook>";
+        ImportResult r = service.validateExcelXml(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        check(r.getRowsRead() == 2, "two spreadsheet rows read: " + r);
+        // ss:Index skipped the selling price cell of row 2, so it is reported as missing
+        check(r.getErrorCount() == 1 && r.getErrors().get(0).getRow() == 2 &&
+            r.getErrors().get(0).getMessage().contains("selling price"), "skipped cell is empty: " + r.getErrors());
+        check(r.getUpdatedColumns().contains("stock"), "stock column recognised: " + r.getUpdatedColumns());
+    }
+
+    private static ImportResult csv(String text) throws IOException {
+        return service.validateCsv(new StringReader(text));
+    }
+
+    private static void check(boolean ok, String what) {
+        if (ok) return;
+        failures++;
+        Logger.warn("FAILED: " + what);
+    }
+}
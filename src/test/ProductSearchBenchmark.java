@@ -0,0 +1,113 @@
+package test;
+
+import models.Product;
+import services.ProductSearchIndex;
+import utils.Logger;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Manual benchmark for the in-memory product search index.
+ * Builds a ProductSearchIndex over N generated names ("Golden Valley Whole Milk 500g") and
+ * times prefix, multi-word and misspelt queries plus renames, reporting p50 / p99 / max.
+ * No database is needed. 1M products want about 2 GB of heap (-Xmx2g).
+ * Usage: ProductSearchBenchmark [sizes=100000,1000000] [limit=10]
+ */
+public class ProductSearchBenchmark {
+    private static final int WARMUP = 20_000;
+    private static final int RUNS = 20_000;
+
+    private static final String[] BRANDS = {"Golden Valley", "Sunrise", "Nature's Best", "Blue Ridge", "Farmhouse",
+        "Urban Pantry", "Maple Leaf", "Green Acres", "Coastal", "Highland", "Silver Spoon", "Red Barn"};
+    private static final String[] KINDS = {"Whole", "Skim", "Organic", "Dark", "Roasted", "Salted", "Unsalted",
+        "Spicy", "Sweet", "Smoked", "Fresh", "Frozen", "Dried", "Light", "Classic", "Premium"};
+    private static final String[] ITEMS = {"Milk", "Chocolate", "Coffee", "Tea", "Butter", "Cheese", "Yogurt",
+        "Bread", "Rice", "Pasta", "Tomato Sauce", "Peanuts", "Almonds", "Honey", "Oats", "Cereal", "Juice",
+        "Chicken", "Sausages", "Crackers", "Cookies", "Noodles", "Vinegar", "Olive Oil", "Mustard", "Ketchup"};
+    private static final String[] SIZES = {"100g", "250g", "500g", "1kg", "330ml", "500ml", "1L", "2L", "6 Pack"};
+
+    private static final String[][] QUERIES = {
+        {"prefix", "m", "mi", "milk", "choc", "olive", "pean", "sau"},
+        {"multi-word", "whole milk", "dark choc", "golden valley cof", "organic oats 1kg", "frozen chicken", "sweet co"},
+        {"misspelt", "choclate", "yoghurt", "cofee", "olvie oil", "sausges", "ketchp"},
+    };
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+            ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+            : new int[] {100_000, 1_000_000};
+        int limit = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        for (int size : sizes) run(size, limit);
+    }
+
+    private static void run(int size, int limit) {
+        Random rnd = new Random(42);
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) names[i] = name(rnd);
+
+        System.gc();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        // loaded the way the shared index loads from ProductDAO.streamProducts
+        ProductSearchIndex index = new ProductSearchIndex(consumer -> {
+            for (int i = 0; i < size; i++) {
+                Product p = new Product();
+                p.setProductId(i + 1);
+                p.setProductName(names[i]);
+                consumer.accept(p);
+            }
+            return size;
+        }, Long.MAX_VALUE);
+        index.reload();
+        long buildMs = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        Logger.info(String.format("-- %,d products: built in %,d ms, ~%,d MB heap --",
+            size, buildMs, (usedHeap() - heapBefore) / (1024 * 1024)));
+
+        for (String[] group : QUERIES) {
+            String[] queries = Arrays.copyOfRange(group, 1, group.length);
+            Logger.info(String.format("%-10s e.g. \"%s\" -> %s", group[0], queries[0], index.search(queries[0], 3)));
+            for (int i = 0; i < WARMUP; i++) index.search(queries[i % queries.length], limit);
+            long[] times = new long[RUNS];
+            long[] perQuery = new long[queries.length];
+            for (int i = 0; i < RUNS; i++) {
+                long t = System.nanoTime();
+                index.search(queries[i % queries.length], limit);
+                times[i] = System.nanoTime() - t;
+                perQuery[i % queries.length] += times[i];
+            }
+            report(group[0], times);
+            int slowest = 0;
+            for (int q = 1; q < queries.length; q++) if (perQuery[q] > perQuery[slowest]) slowest = q;
+            Logger.info(String.format("%-10s slowest \"%s\" averages %,.1f us", "", queries[slowest],
+                perQuery[slowest] / 1_000.0 / (RUNS / queries.length)));
+        }
+
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            int id = rnd.nextInt(size) + 1;
+            long t = System.nanoTime();
+            index.put(id, name(rnd));
+            times[i] = System.nanoTime() - t;
+        }
+        report("rename", times);
+    }
+
+    private static String name(Random rnd) {
+        return BRANDS[rnd.nextInt(BRANDS.length)] + " " + KINDS[rnd.nextInt(KINDS.length)] + " " +
+            ITEMS[rnd.nextInt(ITEMS.length)] + " " + SIZES[rnd.nextInt(SIZES.length)];
+    }
+
+    private static void report(String label, long[] times) {
+        Arrays.sort(times);
+        Logger.info(String.format("%-10s p50 %,8.1f us   p99 %,8.1f us   max %,9.1f us", label,
+            times[times.length / 2] / 1_000.0, times[times.length * 99 / 100] / 1_000.0,
+            times[times.length - 1] / 1_000.0));
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
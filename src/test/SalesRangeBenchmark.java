@@ -0,0 +1,155 @@
+package test;
+
+import config.DatabaseConfig;
+import utils.Logger;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Manual benchmark for sales date-range queries.
+ * Fills a scratch table (bench_sales, same columns as sales) with N rows spread over
+ * three years, then times DATE(sale_date) BETWEEN against the half-open range
+ * sale_date >= ? AND sale_date < ?, before and after adding the sale_date index.
+ * Usage: SalesRangeBenchmark [rows=2000000] [--keep]
+ */
+public class SalesRangeBenchmark {
+    private static final int RUNS = 5;
+    private static final int BATCH = 5_000;
+    private static final int DAYS = 3 * 365;
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 && !args[0].startsWith("--") ? Integer.parseInt(args[0]) : 2_000_000;
+        boolean keep = Arrays.asList(args).contains("--keep");
+        // rewriteBatchedStatements turns each batch into one multi-row INSERT
+        String url = DatabaseConfig.DB_URL_WITH_DB + "?rewriteBatchedStatements=true";
+        try (Connection conn = DriverManager.getConnection(url, DatabaseConfig.DB_USER, DatabaseConfig.DB_PASSWORD)) {
+            setUp(conn, rows);
+
+            LocalDate to = LocalDate.now().minusDays(30);
+            LocalDate from = to.minusDays(6);
+            Logger.info("Range " + from + " .. " + to + " over " + rows + " rows");
+
+            Logger.info("-- without index --");
+            time(conn, "DATE() BETWEEN", from, to, false);
+            time(conn, "half-open range", from, to, true);
+
+            long start = System.nanoTime();
+            try (Statement st = conn.createStatement()) {
+                st.execute("ALTER TABLE bench_sales ADD INDEX idx_bench_sale_date (sale_date)");
+            }
+            Logger.info("Index built in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            Logger.info("-- with idx_bench_sale_date --");
+            time(conn, "DATE() BETWEEN", from, to, false);
+            time(conn, "half-open range", from, to, true);
+
+            if (!keep) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("DROP TABLE bench_sales");
+                }
+            }
+        }
+    }
+
+    private static void setUp(Connection conn, int rows) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS bench_sales");
+            st.execute("CREATE TABLE bench_sales (" +
+                "sale_id INT PRIMARY KEY AUTO_INCREMENT," +
+                "product_id INT NOT NULL," +
+                "product_name VARCHAR(100) NOT NULL," +
+                "quantity INT NOT NULL," +
+                "unit_price DECIMAL(10, 2) NOT NULL," +
+                "total_price DECIMAL(10, 2) NOT NULL," +
+                "sale_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                "user_id INT" +
+                ")");
+        }
+        long start = System.nanoTime();
+        LocalDateTime origin = LocalDate.now().minusDays(DAYS).atStartOfDay();
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        String sql = "INSERT INTO bench_sales (product_id, product_name, quantity, unit_price, total_price, user_id, sale_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 1; i <= rows; i++) {
+                int product = rnd.nextInt(1, 500);
+                int qty = rnd.nextInt(1, 10);
+                double price = product % 50 + 0.99;
+                ps.setInt(1, product);
+                ps.setString(2, "Product " + product);
+                ps.setInt(3, qty);
+                ps.setDouble(4, price);
+                ps.setDouble(5, price * qty);
+                ps.setInt(6, 1);
+                ps.setTimestamp(7, Timestamp.valueOf(origin.plusSeconds(rnd.nextLong(DAYS * 86_400L))));
+                ps.addBatch();
+                if (i % BATCH == 0) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+            ps.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute("ANALYZE TABLE bench_sales");
+        }
+        Logger.info("Inserted " + rows + " rows in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static void time(Connection conn, String label, LocalDate from, LocalDate to, boolean halfOpen) throws SQLException {
+        String sql = halfOpen
+            ? "SELECT COUNT(*), SUM(total_price) FROM bench_sales WHERE sale_date >= ? AND sale_date < ?"
+            : "SELECT COUNT(*), SUM(total_price) FROM bench_sales WHERE DATE(sale_date) BETWEEN ? AND ?";
+        long[] ms = new long[RUNS];
+        long count = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            bind(ps, from, to, halfOpen);
+            for (int r = 0; r < RUNS; r++) {
+                long start = System.nanoTime();
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) count = rs.getLong(1);
+                }
+                ms[r] = (System.nanoTime() - start) / 1_000_000;
+            }
+        }
+        Arrays.sort(ms);
+        Logger.info(String.format("%-16s median %6d ms  min %6d ms  rows matched %d  plan: %s",
+            label, ms[RUNS / 2], ms[0], count, explainAccess(conn, sql, from, to, halfOpen)));
+    }
+
+    // "type/key" from EXPLAIN, e.g. "ALL/-" for a full scan or "range/idx_bench_sale_date"
+    private static String explainAccess(Connection conn, String sql, LocalDate from, LocalDate to, boolean halfOpen) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+            bind(ps, from, to, halfOpen);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return "?";
+                String key = rs.getString("key");
+                return rs.getString("type") + "/" + (key == null ? "-" : key);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, LocalDate from, LocalDate to, boolean halfOpen) throws SQLException {
+        if (halfOpen) {
+            ps.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        } else {
+            ps.setDate(1, java.sql.Date.valueOf(from));
+            ps.setDate(2, java.sql.Date.valueOf(to));
+        }
+    }
+}
@@ -7,7 +7,10 @@ import models.Request;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 /**
  * Exports data to Excel 2003 XML Spreadsheet format (single worksheet).
@@ -31,13 +34,13 @@ public class ExcelExportUtils {
             for (Product p : products) {
                 writeRow(fw,
                         String.valueOf(p.getProductId()),
-                        safe(p.getProductName()),
+                        text(p.getProductName()),
                         formatPrice(p.getBuyingPrice()),
                         formatPrice(p.getSellingPrice()),
                         String.valueOf(p.getStockQuantity()),
                         String.valueOf(p.getThresholdValue()),
                         p.getExpiryDate() != null ? p.getExpiryDate().toString() : "",
-                        safe(p.getAvailabilityStatus())
+                        text(p.getAvailabilityStatus())
                 );
             }
             fw.write("</Table>\n</Worksheet>\n</Workbook>");
@@ -45,22 +48,40 @@ public class ExcelExportUtils {
     }
 
     public static void exportSalesToExcel(List<Sale> sales, File file) throws IOException {
+        exportSalesToExcel(consumer -> {
+            sales.forEach(consumer);
+            return sales.size();
+        }, file);
+    }
+
+    /**
+     * Export sales handed over one at a time by source (e.g. saleDAO::streamSales), so the
+     * whole table is never held in memory. source returns -1 if reading failed.
+     */
+    public static void exportSalesToExcel(ToIntFunction<Consumer<Sale>> source, File file) throws IOException {
         try (FileWriter fw = new FileWriter(file)) {
             fw.write(XML_HEADER);
             fw.write("\n<Worksheet ss:Name=\"Sales\">\n<Table>\n");
             writeRow(fw, "Sale ID", "Product", "Quantity", "Unit Price", "Total Price", "Date", "User ID");
-            for (Sale s : sales) {
-                writeRow(fw,
-                        String.valueOf(s.getSaleId()),
-                        safe(s.getProductName()),
-                        String.valueOf(s.getQuantity()),
-                        formatPrice(s.getUnitPrice()),
-                        formatPrice(s.getTotalPrice()),
-                        s.getSaleDate() != null ? s.getSaleDate().toString() : "",
-                        String.valueOf(s.getUserId())
-                );
-            }
+            int read = source.applyAsInt(s -> {
+                try {
+                    writeRow(fw,
+                            String.valueOf(s.getSaleId()),
+                            text(s.getProductName()),
+                            String.valueOf(s.getQuantity()),
+                            formatPrice(s.getUnitPrice()),
+                            formatPrice(s.getTotalPrice()),
+                            s.getSaleDate() != null ? s.getSaleDate().toString() : "",
+                            String.valueOf(s.getUserId())
+                    );
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (read < 0) throw new IOException("Failed to read sales for export");
             fw.write("</Table>\n</Worksheet>\n</Workbook>");
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
 
@@ -73,10 +94,10 @@ public class ExcelExportUtils {
                 writeRow(fw,
                         String.valueOf(r.getRequestId()),
                         String.valueOf(r.getProductId()),
-                        safe(r.getProductName()),
+                        text(r.getProductName()),
                         String.valueOf(r.getRequestedQuantity()),
-                        safe(r.getRequestedBy()),
-                        safe(r.getStatus()),
+                        text(r.getRequestedBy()),
+                        text(r.getStatus()),
                         r.getRequestDate() != null ? r.getRequestDate().toString() : ""
                 );
             }
@@ -94,5 +115,7 @@ public class ExcelExportUtils {
 
     private static String formatPrice(double v) { return String.format("%.2f", v); }
 
+    private static String text(String s) { return s == null ? "" : s; }
+
     private static String safe(String s) { return s == null ? "" : s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;"); }
 }
@@ -7,7 +7,10 @@ import models.Request;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 /**
  * Export utilities for CSV outputs
@@ -31,19 +34,37 @@ public class ExportUtils {
     }
 
     public static void exportSalesToCSV(List<Sale> sales, File file) throws IOException {
+        exportSalesToCSV(consumer -> {
+            sales.forEach(consumer);
+            return sales.size();
+        }, file);
+    }
+
+    /**
+     * Export sales handed over one at a time by source (e.g. saleDAO::streamSales), so the
+     * whole table is never held in memory. source returns -1 if reading failed.
+     */
+    public static void exportSalesToCSV(ToIntFunction<Consumer<Sale>> source, File file) throws IOException {
         try (FileWriter fw = new FileWriter(file)) {
             fw.write("sale_id,product_id,product_name,quantity,unit_price,total_price,sale_date,user_id\n");
-            for (Sale s : sales) {
-                fw.write(String.format("%d,%d,%s,%d,%.2f,%.2f,%s,%d\n",
-                        s.getSaleId(),
-                        s.getProductId(),
-                        escape(s.getProductName()),
-                        s.getQuantity(),
-                        s.getUnitPrice(),
-                        s.getTotalPrice(),
-                        s.getSaleDate() != null ? s.getSaleDate().toString() : "",
-                        s.getUserId()));
-            }
+            int read = source.applyAsInt(s -> {
+                try {
+                    fw.write(String.format("%d,%d,%s,%d,%.2f,%.2f,%s,%d\n",
+                            s.getSaleId(),
+                            s.getProductId(),
+                            escape(s.getProductName()),
+                            s.getQuantity(),
+                            s.getUnitPrice(),
+                            s.getTotalPrice(),
+                            s.getSaleDate() != null ? s.getSaleDate().toString() : "",
+                            s.getUserId()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (read < 0) throw new IOException("Failed to read sales for export");
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
 